@@ -0,0 +1,413 @@
+package org.acme;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Build-Schritt für die Weboberfläche, läuft in process-classes (siehe pom.xml):
+ * minimiert HTML, JS und CSS aus META-INF/resources, hängt an JS und CSS einen Inhalts-Hash an,
+ * schreibt die Verweise in den Seiten um und legt jede Datei zusätzlich mit gzip und brotli komprimiert ab.
+ * Das Ergebnis landet mit einem Manifest unter META-INF/assets und wird von {@code StaticAssets} ausgeliefert.
+ * Brotli nur, wenn brotli4j auf dem Klassenpfad ist; ohne bleibt es bei gzip.
+ * <p>
+ * Die Minimierung ist bewusst vorsichtig: Kommentare und Einrückung fallen weg, Zeilenumbrüche bleiben,
+ * damit sich an der automatischen Semikolon-Einfügung nichts ändert. Den Großteil spart ohnehin die Kompression.
+ *
+ * <pre>java -cp &lt;klassenpfad&gt; src/build/java/org/acme/AssetPipeline.java &lt;quelle&gt; &lt;ziel&gt;</pre>
+ */
+public class AssetPipeline {
+
+    static final String MANIFEST = "manifest";
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int HASH_LENGTH = 10;
+    private static final Pattern REFERENCE = Pattern.compile("\\b(src|href)=\"([^\":/?#]+\\.(?:js|css))\"");
+    private static final Pattern RAW_BLOCK = Pattern.compile("(?is)(<(script|style|pre|textarea)\\b[^>]*>)(.*?)(</\\2\\s*>)");
+    private static final Pattern HTML_COMMENT = Pattern.compile("(?s)<!--(?!\\[if).*?-->");
+    private static final Set<String> REGEX_KEYWORDS = Set.of("return", "typeof", "case", "do", "else", "in", "of", "new",
+        "delete", "void", "throw", "instanceof", "yield", "await");
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Aufruf: AssetPipeline <quelle> <ziel>");
+            System.exit(2);
+        }
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+        Brotli brotli = Brotli.load();
+
+        Map<String, String> pages = new TreeMap<>();
+        Map<String, String> fingerprinted = new TreeMap<>();
+        Map<String, byte[]> outputs = new LinkedHashMap<>();
+        List<String> manifest = new ArrayList<>();
+
+        try (Stream<Path> files = Files.list(source)) {
+            for (Path file : files.sorted().toList()) {
+                String name = file.getFileName().toString();
+                String content = Files.readString(file, StandardCharsets.UTF_8);
+                if (name.endsWith(".html")) {
+                    pages.put(name, content);
+                } else if (name.endsWith(".js") || name.endsWith(".css")) {
+                    byte[] minified = (name.endsWith(".js") ? minifyJs(content) : minifyCss(content)).getBytes(StandardCharsets.UTF_8);
+                    String hashed = fingerprint(name, minified);
+                    fingerprinted.put(name, hashed);
+                    outputs.put(hashed, minified);
+                    // Unter dem alten Namen weiter erreichbar, etwa für noch gecachte Seiten, aber ohne langes Caching
+                    manifest.add(name + '\t' + hashed + "\tfalse");
+                    manifest.add(hashed + '\t' + hashed + "\ttrue");
+                }
+            }
+        }
+        pages.forEach((name, content) -> {
+            outputs.put(name, minifyHtml(rewriteReferences(content, fingerprinted)).getBytes(StandardCharsets.UTF_8));
+            manifest.add(name + '\t' + name + "\tfalse");
+        });
+
+        Files.createDirectories(target);
+        Map<String, String> encodings = new TreeMap<>();
+        long original = 0;
+        long compressed = 0;
+        for (Map.Entry<String, byte[]> output : outputs.entrySet()) {
+            String name = output.getKey();
+            byte[] bytes = output.getValue();
+            Files.write(target.resolve(name), bytes);
+            List<String> variants = new ArrayList<>(2);
+            byte[] smallest = bytes;
+            byte[] gzip = gzip(bytes);
+            if (gzip.length < bytes.length) {
+                Files.write(target.resolve(name + ".gz"), gzip);
+                variants.add("gzip");
+                smallest = gzip;
+            }
+            byte[] br = brotli.compress(bytes);
+            if (br != null && br.length < bytes.length) {
+                Files.write(target.resolve(name + ".br"), br);
+                variants.add("br");
+                if (br.length < smallest.length) smallest = br;
+            }
+            encodings.put(name, variants.isEmpty() ? "-" : String.join(",", variants));
+            original += bytes.length;
+            compressed += smallest.length;
+        }
+
+        List<String> lines = new ArrayList<>(manifest.size());
+        for (String line : manifest) {
+            String file = line.split("\t")[1];
+            lines.add(line + '\t' + encodings.get(file));
+        }
+        Files.write(target.resolve(MANIFEST), lines, StandardCharsets.UTF_8);
+        System.out.printf("Assets: %d Dateien, %d Bytes minimiert, %d Bytes komprimiert%s%n",
+            outputs.size(), original, compressed, brotli.available() ? "" : " (ohne brotli4j nur gzip)");
+    }
+
+    static String fingerprint(String name, byte[] content) {
+        int dot = name.lastIndexOf('.');
+        String hash = HEX.formatHex(sha256(content)).substring(0, HASH_LENGTH);
+        return name.substring(0, dot) + '.' + hash + name.substring(dot);
+    }
+
+    static String rewriteReferences(String html, Map<String, String> fingerprinted) {
+        Matcher matcher = REFERENCE.matcher(html);
+        StringBuilder out = new StringBuilder(html.length());
+        while (matcher.find()) {
+            String hashed = fingerprinted.get(matcher.group(2));
+            String replacement = hashed == null ? matcher.group() : matcher.group(1) + "=\"" + hashed + '"';
+            matcher.appendReplacement(out, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(out);
+        return out.toString();
+    }
+
+    /**
+     * Kommentare und Einrückung weg; Skripte und Styles minimiert, pre und textarea unverändert
+     */
+    static String minifyHtml(String html) {
+        Matcher matcher = RAW_BLOCK.matcher(html);
+        StringBuilder out = new StringBuilder(html.length());
+        int last = 0;
+        while (matcher.find()) {
+            out.append(collapseMarkup(html.substring(last, matcher.start())));
+            String tag = matcher.group(2).toLowerCase();
+            String body = matcher.group(3);
+            if (tag.equals("script") && !matcher.group(1).contains("src=")) {
+                body = minifyJs(body).strip();
+            } else if (tag.equals("style")) {
+                body = minifyCss(body);
+            }
+            out.append(matcher.group(1)).append(body).append(matcher.group(4));
+            last = matcher.end();
+        }
+        out.append(collapseMarkup(html.substring(last)));
+        return out.toString().strip() + '\n';
+    }
+
+    private static String collapseMarkup(String markup) {
+        return HTML_COMMENT.matcher(markup).replaceAll("").replaceAll("[ \\t]*\\R\\s*", "\n");
+    }
+
+    static String minifyCss(String css) {
+        StringBuilder out = new StringBuilder(css.length());
+        boolean space = false;
+        int i = 0;
+        while (i < css.length()) {
+            char c = css.charAt(i);
+            if (c == '/' && i + 1 < css.length() && css.charAt(i + 1) == '*') {
+                int end = css.indexOf("*/", i + 2);
+                i = end < 0 ? css.length() : end + 2;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                space = true;
+                i++;
+                continue;
+            }
+            if (space && out.length() > 0 && "{};,>".indexOf(c) < 0 && "{};,>:".indexOf(out.charAt(out.length() - 1)) < 0) {
+                out.append(' ');
+            }
+            space = false;
+            if (c == '"' || c == '\'') {
+                i = copyString(css, i, out);
+                continue;
+            }
+            if (c == '}' && out.length() > 0 && out.charAt(out.length() - 1) == ';') {
+                out.setLength(out.length() - 1);
+            }
+            out.append(c);
+            i++;
+        }
+        return out.toString();
+    }
+
+    /**
+     * Entfernt Kommentare und überflüssige Leerzeichen außerhalb von Strings, Template-Literalen und regulären Ausdrücken.
+     * Zeilenumbrüche bleiben (höchstens einer), damit die Semikolon-Einfügung unverändert bleibt.
+     */
+    static String minifyJs(String js) {
+        StringBuilder out = new StringBuilder(js.length());
+        boolean space = false;
+        boolean newline = false;
+        int i = 0;
+        while (i < js.length()) {
+            char c = js.charAt(i);
+            char next = i + 1 < js.length() ? js.charAt(i + 1) : '\0';
+            if (c == '/' && next == '/') {
+                while (i < js.length() && js.charAt(i) != '\n') i++;
+                continue;
+            }
+            if (c == '/' && next == '*') {
+                int end = js.indexOf("*/", i + 2);
+                end = end < 0 ? js.length() : end + 2;
+                if (js.substring(i, end).indexOf('\n') >= 0) newline = true;
+                space = true;
+                i = end;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                if (c == '\n') newline = true;
+                space = true;
+                i++;
+                continue;
+            }
+            if (out.length() > 0) {
+                char previous = out.charAt(out.length() - 1);
+                if (newline) {
+                    out.append('\n');
+                } else if (space && needsSpace(previous, c)) {
+                    out.append(' ');
+                }
+            }
+            space = false;
+            newline = false;
+
+            if (c == '"' || c == '\'') {
+                i = copyString(js, i, out);
+            } else if (c == '`') {
+                i = copyTemplate(js, i, out);
+            } else if (c == '/' && regexAllowed(out)) {
+                i = copyRegex(js, i, out);
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean needsSpace(char previous, char c) {
+        return (isWordChar(previous) && isWordChar(c))
+            || (previous == '+' && c == '+') || (previous == '-' && c == '-')
+            || (previous == '/' && c == '/');
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '\\';
+    }
+
+    // Ein / beginnt einen regulären Ausdruck nach einem Operator, einer öffnenden Klammer oder einem Schlüsselwort wie return
+    private static boolean regexAllowed(StringBuilder out) {
+        int end = out.length();
+        while (end > 0 && Character.isWhitespace(out.charAt(end - 1))) end--;
+        if (end == 0) return true;
+        char previous = out.charAt(end - 1);
+        if (previous == ')' || previous == ']' || previous == '}') return false;
+        if (!isWordChar(previous)) return true;
+        int start = end;
+        while (start > 0 && isWordChar(out.charAt(start - 1))) start--;
+        return REGEX_KEYWORDS.contains(out.substring(start, end));
+    }
+
+    private static int copyString(String source, int start, StringBuilder out) {
+        char quote = source.charAt(start);
+        out.append(quote);
+        int i = start + 1;
+        while (i < source.length()) {
+            char c = source.charAt(i++);
+            out.append(c);
+            if (c == '\\' && i < source.length()) {
+                out.append(source.charAt(i++));
+            } else if (c == quote || c == '\n') {
+                break;
+            }
+        }
+        return i;
+    }
+
+    // Template-Literale bleiben samt ${...} unverändert, auch verschachtelte
+    private static int copyTemplate(String source, int start, StringBuilder out) {
+        out.append('`');
+        int i = start + 1;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '\\' && i + 1 < source.length()) {
+                out.append(c).append(source.charAt(i + 1));
+                i += 2;
+            } else if (c == '`') {
+                out.append(c);
+                return i + 1;
+            } else if (c == '$' && i + 1 < source.length() && source.charAt(i + 1) == '{') {
+                out.append("${");
+                i = copyExpression(source, i + 2, out);
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return i;
+    }
+
+    private static int copyExpression(String source, int start, StringBuilder out) {
+        int depth = 1;
+        int i = start;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '"' || c == '\'') {
+                i = copyString(source, i, out);
+            } else if (c == '`') {
+                i = copyTemplate(source, i, out);
+            } else {
+                out.append(c);
+                i++;
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}' && --depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return i;
+    }
+
+    private static int copyRegex(String source, int start, StringBuilder out) {
+        out.append('/');
+        int i = start + 1;
+        boolean inClass = false;
+        while (i < source.length()) {
+            char c = source.charAt(i++);
+            out.append(c);
+            if (c == '\\' && i < source.length()) {
+                out.append(source.charAt(i++));
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if ((c == '/' && !inClass) || c == '\n') {
+                break;
+            }
+        }
+        return i;
+    }
+
+    static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * brotli4j per Reflection, damit der Build auch ohne die native Bibliothek durchläuft
+     */
+    private record Brotli(Method compress, Object parameters) {
+
+        static Brotli load() {
+            try {
+                Class.forName("com.aayushatharva.brotli4j.Brotli4jLoader").getMethod("ensureAvailability").invoke(null);
+                Class<?> encoder = Class.forName("com.aayushatharva.brotli4j.encoder.Encoder");
+                Class<?> parametersType = Class.forName("com.aayushatharva.brotli4j.encoder.Encoder$Parameters");
+                Object parameters = parametersType.getConstructor().newInstance();
+                parametersType.getMethod("setQuality", int.class).invoke(parameters, 11);
+                return new Brotli(encoder.getMethod("compress", byte[].class, parametersType), parameters);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.err.println("brotli4j nicht verfügbar, nur gzip: " + e);
+                return new Brotli(null, null);
+            }
+        }
+
+        boolean available() {
+            return compress != null;
+        }
+
+        byte[] compress(byte[] content) {
+            if (compress == null) return null;
+            try {
+                return (byte[]) compress.invoke(null, content, parameters);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("brotli-Kompression fehlgeschlagen", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.acme;
+
+import java.util.concurrent.TimeUnit;
+
+import org.acme.AccessKey.KeyRole;
+import org.acme.ApiKeyFilter.RequiredRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rollenermittlung und Rechteprüfung, die vor jedem geschützten Request laufen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiKeyFilterBenchmark {
+
+    @Param({ "api/quiz/filter", "api/quiz/sessions", "api/keys", "overview.html" })
+    String path;
+
+    @Param({ "GET", "POST" })
+    String method;
+
+    @Benchmark
+    public RequiredRole determineRequiredRole() {
+        return ApiKeyFilter.determineRequiredRole(path, method);
+    }
+
+    @Benchmark
+    public boolean determineRoleAndCheckPermission() {
+        return ApiKeyFilter.hasPermission(KeyRole.USER, ApiKeyFilter.determineRequiredRole(path, method));
+    }
+}
@@ -0,0 +1,76 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Erzeugt reproduzierbare Testdaten für die Benchmarks
+ */
+final class BenchmarkData {
+
+    static final String[] CATEGORIES = {
+        "IT-Systeme", "Netzwerktechnik", "Betriebssysteme", "Programmierung", "Datenbanken",
+        "IT-Sicherheit", "Software-Engineering", "Wirtschaft & Recht", "Projektmanagement", "Elektrotechnik"
+    };
+    static final String[] DIFFICULTIES = { "leicht", "mittel", "schwer" };
+    static final String[] TYPES = { "multiple-choice", "text", "matching" };
+
+    private BenchmarkData() {
+    }
+
+    static QuizQuestion multipleChoice() {
+        QuizQuestion q = new QuizQuestion("Welche Schicht des OSI-Modells ist für das Routing zuständig?", "multiple-choice",
+            List.of("Bitübertragungsschicht", "Sicherungsschicht", "Vermittlungsschicht", "Transportschicht"),
+            List.of(2), null, null, null, null, "Netzwerktechnik", "mittel");
+        q.id = new ObjectId();
+        return q;
+    }
+
+    static QuizQuestion text() {
+        QuizQuestion q = new QuizQuestion("Wofür steht die Abkürzung DNS?", "text",
+            null, null, "Domain Name System", null, null, null, "Netzwerktechnik", "leicht");
+        q.id = new ObjectId();
+        return q;
+    }
+
+    static QuizQuestion matching() {
+        QuizQuestion q = new QuizQuestion("Ordne die Protokolle der passenden Schicht zu.", "matching",
+            null, null, null,
+            List.of("TCP", "UDP", "IP", "ICMP", "HTTP", "SMTP"),
+            List.of("Transportschicht", "Vermittlungsschicht", "Anwendungsschicht"),
+            List.of(
+                new QuizQuestion.CategoryMapping(0, List.of(0, 1)),
+                new QuizQuestion.CategoryMapping(1, List.of(2, 3)),
+                new QuizQuestion.CategoryMapping(2, List.of(4, 5))),
+            "Netzwerktechnik", "schwer");
+        q.id = new ObjectId();
+        return q;
+    }
+
+    static QuizQuestion ofType(String type) {
+        return switch (type) {
+            case "multiple-choice" -> multipleChoice();
+            case "text" -> text();
+            case "matching" -> matching();
+            default -> throw new IllegalArgumentException(type);
+        };
+    }
+
+    /**
+     * Fragenkatalog mit gleichmäßig verteilten Typen, Kategorien und Schwierigkeiten
+     */
+    static List<QuizQuestion> bank(int size) {
+        Random random = new Random(42);
+        List<QuizQuestion> bank = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            QuizQuestion q = ofType(TYPES[random.nextInt(TYPES.length)]);
+            q.category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            q.difficulty = DIFFICULTIES[random.nextInt(DIFFICULTIES.length)];
+            bank.add(q);
+        }
+        return bank;
+    }
+}
@@ -0,0 +1,98 @@
+package org.acme;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Stream-Filter über den ganzen Katalog, wie ihn QuizService.filterQuestions vor der Verlagerung nach MongoDB
+ * ausgeführt hat, im Vergleich zur indizierten Seitenabfrage von {@link InMemoryQuestionStore} und zu den Bitmaps
+ * von {@link QuestionCatalog}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FilterBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    int bankSize;
+
+    List<QuizQuestion> bank;
+    InMemoryQuestionStore store;
+    QuestionCatalog catalog;
+
+    @Setup
+    public void setup() {
+        bank = BenchmarkData.bank(bankSize);
+        store = new InMemoryQuestionStore();
+        store.insertMany(bank);
+
+        catalog = new QuestionCatalog();
+        catalog.enabled = true;
+        catalog.repository = store;
+        catalog.reload();
+    }
+
+    @Benchmark
+    public List<QuizQuestion> filterByAllCriteria() {
+        return filter("multiple-choice", "Netzwerktechnik", "mittel");
+    }
+
+    @Benchmark
+    public List<QuizQuestion> filterByCategory() {
+        return filter(null, "Datenbanken", null);
+    }
+
+    @Benchmark
+    public List<QuizQuestion> filterWithoutCriteria() {
+        return filter(null, null, null);
+    }
+
+    @Benchmark
+    public QuestionPage<QuizQuestion> indexedPageByAllCriteria() {
+        return store.findPage(new QuestionFilter("multiple-choice", "Netzwerktechnik", "mittel"), null, QuestionStore.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public QuestionPage<QuizQuestion> indexedPageByCategory() {
+        return store.findPage(new QuestionFilter(null, "Datenbanken", null), null, QuestionStore.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public QuestionPage<QuizQuestion> catalogPageByAllCriteria() {
+        return catalog.findPage(new QuestionFilter("multiple-choice", "Netzwerktechnik", "mittel"), null, QuestionStore.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public QuestionPage<QuizQuestion> catalogPageByCategory() {
+        return catalog.findPage(new QuestionFilter(null, "Datenbanken", null), null, QuestionStore.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public QuizQuestion catalogRandomByAllCriteria() {
+        return catalog.sampleOne(new QuestionFilter("multiple-choice", "Netzwerktechnik", "mittel"));
+    }
+
+    private List<QuizQuestion> filter(String type, String category, String difficulty) {
+        return bank.stream()
+            .filter(q -> type == null || type.equals(q.questionType))
+            .filter(q -> category == null || category.equals(q.category))
+            .filter(q -> difficulty == null || difficulty.equals(q.difficulty))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,48 @@
+package org.acme;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validierung und Normalisierung, die bei jedem Anlegen, Ändern und Import laufen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuizQuestionBenchmark {
+
+    @Param({ "multiple-choice", "text", "matching" })
+    String questionType;
+
+    QuizQuestion question;
+
+    @Setup
+    public void setup() {
+        question = BenchmarkData.ofType(questionType);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return question.isValid();
+    }
+
+    @Benchmark
+    public boolean normalizeAndValidate() {
+        question.normalizeData();
+        return question.isValid();
+    }
+}
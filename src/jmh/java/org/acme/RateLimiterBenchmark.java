@@ -0,0 +1,68 @@
+package org.acme;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.acme.AccessKey.KeyRole;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Kosten des Rate-Limits im Filter, mit vielen Threads auf wenigen Schlüsseln (Konkurrenz auf dem CAS)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({ "1", "1000" })
+    int keyCount;
+
+    RateLimiter limiter;
+    ApiKeyCache.ResolvedKey[] keys;
+
+    @Setup
+    public void setup() {
+        limiter = new RateLimiter();
+        limiter.enabled = true;
+        limiter.userPerSecond = 1_000_000;
+        limiter.userBurst = 1_000;
+        limiter.maxBuckets = 100_000;
+        limiter.sweepInterval = Duration.ofMinutes(1);
+
+        keys = new ApiKeyCache.ResolvedKey[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = new ApiKeyCache.ResolvedKey(new ObjectId(), ApiKeyCache.hash("key-" + i), KeyRole.USER, "user-" + i, null, null);
+        }
+    }
+
+    @Benchmark
+    public long acquire(ThreadIndex index) {
+        return limiter.acquire(keys[index.next(keyCount)]);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadIndex {
+        int position;
+
+        int next(int size) {
+            position = position + 1 == size ? 0 : position + 1;
+            return position;
+        }
+    }
+}
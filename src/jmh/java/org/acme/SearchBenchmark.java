@@ -0,0 +1,69 @@
+package org.acme;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Suchanfragen gegen {@link QuestionSearchIndex}: seltener Begriff, häufiger Wortanfang und Kombination mit Filter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+
+    @Param({ "1000", "100000" })
+    int bankSize;
+
+    QuestionSearchIndex index;
+
+    @Setup
+    public void setup() {
+        List<QuizQuestion> bank = BenchmarkData.bank(bankSize);
+        // Ein seltener Begriff je Frage, sonst wären alle Fragen eines Typs textgleich
+        for (int i = 0; i < bank.size(); i++) {
+            bank.get(i).question += " Lernfeld" + (i % 1000);
+        }
+        InMemoryQuestionStore store = new InMemoryQuestionStore();
+        store.insertMany(bank);
+
+        QuestionCatalog catalog = new QuestionCatalog();
+        catalog.enabled = true;
+        catalog.repository = store;
+        catalog.reload();
+
+        index = new QuestionSearchIndex();
+        index.catalog = catalog;
+        index.maxPrefixTerms = 200;
+        index.rebuild();
+    }
+
+    @Benchmark
+    public QuestionSearchIndex.SearchResult rareTerm() {
+        return index.search("lernfeld42", QuestionFilter.ALL, 0, 20);
+    }
+
+    @Benchmark
+    public QuestionSearchIndex.SearchResult commonPrefix() {
+        return index.search("schi", QuestionFilter.ALL, 0, 20);
+    }
+
+    @Benchmark
+    public QuestionSearchIndex.SearchResult twoTermsWithFilter() {
+        return index.search("osi vermittlung", new QuestionFilter(null, "Datenbanken", "mittel"), 0, 20);
+    }
+}
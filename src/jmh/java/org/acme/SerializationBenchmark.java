@@ -0,0 +1,103 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.acme.AccessKey.KeyRole;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Jackson-Serialisierung der Antwortobjekte; ObjectId wird wie in der Anwendung als Hex-String geschrieben.
+ * Zum Vergleich eine Seite aus den vorab serialisierten Fragmenten von {@link QuestionJsonCache}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({ "multiple-choice", "text", "matching" })
+    String questionType;
+
+    ObjectWriter questionWriter;
+    ObjectWriter keyViewWriter;
+    ObjectWriter pageWriter;
+    QuestionJsonCache jsonCache;
+    QuestionPage<QuizQuestion> page;
+    QuizQuestion question;
+    AccessKeyResource.KeyView keyView;
+
+    @Setup
+    public void setup() {
+        ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new SimpleModule().addSerializer(ObjectId.class, ToStringSerializer.instance));
+        questionWriter = mapper.writerFor(QuizQuestion.class);
+        keyViewWriter = mapper.writerFor(AccessKeyResource.KeyView.class);
+        pageWriter = mapper.writerFor(QuestionPage.class);
+
+        question = BenchmarkData.ofType(questionType);
+
+        AccessKey key = new AccessKey();
+        key.id = new ObjectId();
+        key.key = "0123456789abcdef0123456789abcdef0123456789abcdef";
+        key.role = KeyRole.USER;
+        key.label = "Klasse 11b";
+        key.userId = "5f0c4a2e-8b1d-4c55-9a57-0d3e2f1b6c7a";
+        key.displayName = "Max Mustermann";
+        keyView = AccessKeyResource.KeyView.from(key);
+
+        List<QuizQuestion> items = new ArrayList<>(QuestionStore.DEFAULT_PAGE_SIZE);
+        for (int i = 0; i < QuestionStore.DEFAULT_PAGE_SIZE; i++) {
+            items.add(BenchmarkData.ofType(questionType));
+        }
+        page = new QuestionPage<>(items, items.get(items.size() - 1).id.toHexString());
+
+        jsonCache = new QuestionJsonCache();
+        jsonCache.objectMapper = mapper;
+        jsonCache.maxEntries = 100_000;
+        jsonCache.init();
+        jsonCache.page(page);
+    }
+
+    @Benchmark
+    public byte[] serializeQuestion() throws JsonProcessingException {
+        return questionWriter.writeValueAsBytes(question);
+    }
+
+    @Benchmark
+    public byte[] serializeKeyView() throws JsonProcessingException {
+        return keyViewWriter.writeValueAsBytes(keyView);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public Buffer cachedPage() {
+        return jsonCache.page(page);
+    }
+}
@@ -15,6 +15,16 @@ public class AccessKey extends PanacheMongoEntity {
     public String displayName;
     public Instant createdAt = Instant.now();
 
+    // Optionale Rate-Limits für diesen Schlüssel; null bedeutet Vorgabe der Rolle
+    public Double rateLimitPerSecond;
+    public Integer rateLimitBurst;
+
+    // Nutzung, periodisch von KeyUsageTracker hochgezählt
+    public long requestCount;
+    public long forbiddenCount;
+    public long rateLimitedCount;
+    public Instant lastUsedAt;
+
     public enum KeyRole {
         USER,
         ADMIN,
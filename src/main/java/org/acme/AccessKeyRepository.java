@@ -1,14 +1,62 @@
 package org.acme;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
+import org.bson.Document;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+
 import io.quarkus.mongodb.panache.PanacheMongoRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
 @ApplicationScoped
 public class AccessKeyRepository implements PanacheMongoRepository<AccessKey> {
 
+    // findByKey läuft bei jedem Cache-Miss des API-Key-Filters; eindeutig, damit ein Schlüssel nie zwei Rollen hat
+    static final List<IndexModel> INDEXES = List.of(
+        new IndexModel(Indexes.ascending("key"), new IndexOptions().name("key_unique").unique(true)));
+
     public Optional<AccessKey> findByKey(String key) {
         return find("key", key).firstResultOptional();
     }
+
+    Document explainFindByKey() {
+        return mongoCollection().find(Filters.eq("key", "")).limit(1).explain(Document.class);
+    }
+
+    /**
+     * Ein ungeordneter bulkWrite mit $inc auf die Zähler und $max auf lastUsedAt je Schlüssel, ohne Upsert.
+     * Ergebnis sind die Einträge mit Schreibfehler; alle anderen sind geschrieben.
+     */
+    public List<KeyUsageTracker.KeyUsage> recordUsage(List<KeyUsageTracker.KeyUsage> usage) {
+        List<UpdateOneModel<AccessKey>> writes = new ArrayList<>(usage.size());
+        for (KeyUsageTracker.KeyUsage entry : usage) {
+            writes.add(new UpdateOneModel<>(Filters.eq("_id", entry.id()), Updates.combine(
+                Updates.inc("requestCount", entry.requests()),
+                Updates.inc("forbiddenCount", entry.forbidden()),
+                Updates.inc("rateLimitedCount", entry.rateLimited()),
+                Updates.max("lastUsedAt", Date.from(entry.lastSeen())))));
+        }
+        try {
+            mongoCollection().bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            return List.of();
+        } catch (MongoBulkWriteException e) {
+            List<KeyUsageTracker.KeyUsage> failed = new ArrayList<>(e.getWriteErrors().size());
+            for (BulkWriteError error : e.getWriteErrors()) {
+                failed.add(usage.get(error.getIndex()));
+            }
+            return failed;
+        }
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package org.acme;
 
 import java.security.SecureRandom;
+import java.time.Instant;
 import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
@@ -8,6 +9,7 @@ import java.util.UUID;
 
 import org.acme.AccessKey.KeyRole;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.ws.rs.Consumes;
@@ -21,6 +23,7 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
 @Path("/api/keys")
+@RunOnVirtualThread
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
 public class AccessKeyResource {
@@ -29,12 +32,21 @@ public class AccessKeyResource {
     private static final HexFormat HEX = HexFormat.of();
 
     @Inject
-    AccessKeyRepository repository;
+    AccessKeyStore repository;
 
+    @Inject
+    ApiKeyCache apiKeyCache;
+
+    @Inject
+    KeyUsageTracker keyUsage;
+
+    /**
+     * Nutzung aus der Datenbank plus die noch nicht geschriebenen Zähler im Speicher
+     */
     @GET
     public List<KeyView> list() {
         return repository.listAll().stream()
-            .map(KeyView::from)
+            .map(key -> KeyView.from(key, keyUsage.pending(key.id)))
             .toList();
     }
 
@@ -46,14 +58,24 @@ public class AccessKeyResource {
                 .build();
         }
 
+        if ((request.rateLimitPerSecond != null && request.rateLimitPerSecond <= 0)
+                || (request.rateLimitBurst != null && request.rateLimitBurst <= 0)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", "Rate-Limit muss größer 0 sein"))
+                .build();
+        }
+
         AccessKey key = new AccessKey();
         key.key = generateKey();
         key.role = request.role;
         key.label = request.label;
         key.userId = UUID.randomUUID().toString();
         key.displayName = request.displayName;
+        key.rateLimitPerSecond = request.rateLimitPerSecond;
+        key.rateLimitBurst = request.rateLimitBurst;
 
         repository.persist(key);
+        apiKeyCache.seed(key);
 
         return Response.status(Response.Status.CREATED)
             .entity(new CreatedKeyResponse(key.id.toString(), key.key, key.role, key.label, key.userId, key.displayName))
@@ -72,12 +94,13 @@ public class AccessKeyResource {
                 .build();
         }
 
-        boolean deleted = repository.deleteById(objectId);
-        if (!deleted) {
+        AccessKey key = repository.findById(objectId);
+        if (key == null || !repository.deleteById(objectId)) {
             return Response.status(Response.Status.NOT_FOUND)
                 .entity(Map.of("error", "Key nicht gefunden"))
                 .build();
         }
+        apiKeyCache.evict(key);
         return Response.noContent().build();
     }
 
@@ -91,14 +114,32 @@ public class AccessKeyResource {
         public KeyRole role;
         public String label;
         public String displayName;
+        public Double rateLimitPerSecond;
+        public Integer rateLimitBurst;
     }
 
-    public record KeyView(String id, String role, String label, String createdAt, String maskedKey, String userId, String displayName) {
-        static KeyView from(AccessKey key) {
+    public record KeyView(String id, String role, String label, String createdAt, String maskedKey, String userId, String displayName,
+                          Double rateLimitPerSecond, Integer rateLimitBurst,
+                          long requestCount, long forbiddenCount, long rateLimitedCount, String lastUsedAt) {
+        static KeyView from(AccessKey key, KeyUsageTracker.KeyUsage pending) {
             String masked = key.key != null && key.key.length() > 6
                 ? "***" + key.key.substring(key.key.length() - 6)
                 : "***";
-            return new KeyView(key.id.toString(), key.role.name(), key.label, key.createdAt.toString(), masked, key.userId, key.displayName);
+            long requests = key.requestCount;
+            long forbidden = key.forbiddenCount;
+            long rateLimited = key.rateLimitedCount;
+            Instant lastUsed = key.lastUsedAt;
+            if (pending != null) {
+                requests += pending.requests();
+                forbidden += pending.forbidden();
+                rateLimited += pending.rateLimited();
+                if (pending.lastSeen() != null && (lastUsed == null || lastUsed.isBefore(pending.lastSeen()))) {
+                    lastUsed = pending.lastSeen();
+                }
+            }
+            return new KeyView(key.id.toString(), key.role.name(), key.label, key.createdAt.toString(), masked, key.userId, key.displayName,
+                key.rateLimitPerSecond, key.rateLimitBurst,
+                requests, forbidden, rateLimited, lastUsed == null ? null : lastUsed.toString());
         }
     }
 
@@ -0,0 +1,28 @@
+package org.acme;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Speicher-Abstraktion für API-Schlüssel, analog zu {@link QuestionStore}
+ */
+public interface AccessKeyStore {
+
+    List<AccessKey> listAll();
+
+    AccessKey findById(ObjectId id);
+
+    Optional<AccessKey> findByKey(String key);
+
+    void persist(AccessKey key);
+
+    boolean deleteById(ObjectId id);
+
+    /**
+     * Zählt die Nutzung mehrerer Schlüssel in einem Schreibzugriff hoch; unbekannte IDs werden übergangen.
+     * Ergebnis sind die Einträge, die nicht geschrieben wurden; eine Exception heißt, dass keiner geschrieben wurde.
+     */
+    List<KeyUsageTracker.KeyUsage> recordUsage(List<KeyUsageTracker.KeyUsage> usage);
+}
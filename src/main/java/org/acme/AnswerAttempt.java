@@ -0,0 +1,10 @@
+package org.acme;
+
+import java.time.Instant;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Ein Antwortversuch. userId stammt aus dem API-Schlüssel, at ist die Empfangszeit auf dem Server.
+ */
+public record AnswerAttempt(ObjectId questionId, String category, String userId, boolean correct, long timeTakenMs, Instant at) { }
@@ -0,0 +1,140 @@
+package org.acme;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Vorkompilierter Lösungsschlüssel einer Frage.
+ * Multiple Choice und Zuordnungen werden als Bitmasken verglichen (bis zu 64 Antworten bzw. Items),
+ * Textantworten als getrimmter, kleingeschriebener String.
+ */
+public final class AnswerKey {
+
+    private static final int MAX_BITS = Long.SIZE;
+
+    final ObjectId questionId;
+    final String questionType;
+    final long correctMask;
+    final long[] mappingMasks;
+    final int mappingCount;
+    final String normalizedText;
+
+    private AnswerKey(ObjectId questionId, String questionType, long correctMask, long[] mappingMasks, String normalizedText) {
+        this.questionId = questionId;
+        this.questionType = questionType;
+        this.correctMask = correctMask;
+        this.mappingMasks = mappingMasks;
+        this.normalizedText = normalizedText;
+
+        int count = 0;
+        if (mappingMasks != null) {
+            for (long mask : mappingMasks) {
+                if (mask != 0) count++;
+            }
+        }
+        this.mappingCount = count;
+    }
+
+    public static AnswerKey compile(QuizQuestion question) {
+        String type = question.questionType == null ? "" : question.questionType;
+        return switch (type) {
+            case "multiple-choice" -> new AnswerKey(question.id, type, toMask(question.correctAnswerIndices), null, null);
+            case "matching" -> new AnswerKey(question.id, type, 0L, compileMappings(question), null);
+            case "text" -> new AnswerKey(question.id, type, 0L, null,
+                question.textAnswer == null ? null : question.textAnswer.trim().toLowerCase(Locale.ROOT));
+            default -> new AnswerKey(question.id, type, 0L, null, null);
+        };
+    }
+
+    /**
+     * Bewertet eine Antwort, ohne Zwischenobjekte anzulegen
+     */
+    public boolean grade(GradingService.Answer answer) {
+        return switch (questionType) {
+            case "multiple-choice" -> gradeMultipleChoice(answer.selectedIndices);
+            case "text" -> gradeText(answer.textAnswer);
+            case "matching" -> gradeMatching(answer.mappings);
+            default -> false;
+        };
+    }
+
+    private boolean gradeMultipleChoice(List<Integer> selected) {
+        if (selected == null || correctMask == 0) return false;
+
+        long mask = 0;
+        for (int i = 0, n = selected.size(); i < n; i++) {
+            Integer index = selected.get(i);
+            if (index == null || index < 0 || index >= MAX_BITS) return false;
+            mask |= 1L << index;
+        }
+        return mask == correctMask;
+    }
+
+    private boolean gradeText(String text) {
+        if (text == null || normalizedText == null) return false;
+
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+
+        int length = end - start;
+        return length == normalizedText.length()
+            && normalizedText.regionMatches(true, 0, text, start, length);
+    }
+
+    private boolean gradeMatching(List<QuizQuestion.CategoryMapping> mappings) {
+        if (mappings == null || mappingMasks == null) return false;
+
+        long seenCategories = 0;
+        int matched = 0;
+        for (int i = 0, n = mappings.size(); i < n; i++) {
+            QuizQuestion.CategoryMapping mapping = mappings.get(i);
+            if (mapping == null || mapping.itemIndices == null || mapping.itemIndices.isEmpty()) continue;
+
+            Integer category = mapping.categoryIndex;
+            if (category == null || category < 0 || category >= mappingMasks.length) return false;
+            if ((seenCategories & (1L << category)) != 0) return false;
+            seenCategories |= 1L << category;
+
+            long mask = 0;
+            List<Integer> items = mapping.itemIndices;
+            for (int j = 0, m = items.size(); j < m; j++) {
+                Integer item = items.get(j);
+                if (item == null || item < 0 || item >= MAX_BITS) return false;
+                mask |= 1L << item;
+            }
+            if (mask != mappingMasks[category]) return false;
+            matched++;
+        }
+        return matched == mappingCount;
+    }
+
+    private static long toMask(List<Integer> indices) {
+        if (indices == null) return 0L;
+        long mask = 0;
+        for (Integer index : indices) {
+            // Fragen mit mehr als 64 Antworten lassen sich nicht als Bitmaske bewerten
+            if (index == null || index < 0 || index >= MAX_BITS) return 0L;
+            mask |= 1L << index;
+        }
+        return mask;
+    }
+
+    private static long[] compileMappings(QuizQuestion question) {
+        if (question.rightItems == null || question.correctMappings == null) return null;
+        int categories = question.rightItems.size();
+        if (categories > MAX_BITS) return null;
+
+        long[] masks = new long[categories];
+        for (QuizQuestion.CategoryMapping mapping : question.correctMappings) {
+            if (mapping.categoryIndex == null || mapping.categoryIndex < 0 || mapping.categoryIndex >= categories) continue;
+            long mask = toMask(mapping.itemIndices);
+            if (mask == 0L) return null;
+            masks[mapping.categoryIndex] |= mask;
+        }
+        return masks;
+    }
+}
@@ -0,0 +1,211 @@
+package org.acme;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.acme.AccessKey.KeyRole;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Cache für aufgelöste API-Schlüssel, damit nicht jeder Request eine Mongo-Abfrage auslöst.
+ * Schlüssel werden nur als SHA-256-Hash abgelegt, nie im Klartext.
+ */
+@ApplicationScoped
+public class ApiKeyCache {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    @Inject
+    AccessKeyStore accessKeyRepository;
+
+    @ConfigProperty(name = "app.auth.cache.ttl", defaultValue = "5m")
+    Duration ttl;
+
+    @ConfigProperty(name = "app.auth.cache.negative-ttl", defaultValue = "30s")
+    Duration negativeTtl;
+
+    @ConfigProperty(name = "app.auth.cache.max-size", defaultValue = "10000")
+    int maxSize;
+
+    @ConfigProperty(name = "app.auth.cache.negative-max-size", defaultValue = "1000")
+    int maxNegative;
+
+    // Gültige und unbekannte Schlüssel getrennt, jeweils als LRU: viele falsche Schlüssel verdrängen keine gültigen
+    private Map<String, Entry> known;
+    private Map<String, Entry> unknown;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Zählt jedes evict; ein gelesener Schlüssel wird nur eingetragen, wenn seit dem Lesen keiner entfernt wurde
+    private long evictions;
+
+    @PostConstruct
+    void init() {
+        known = lru(maxSize);
+        unknown = lru(maxNegative);
+    }
+
+    /**
+     * Liefert Rolle und Limits zum Schlüssel oder leer, wenn der Schlüssel unbekannt ist.
+     * Auch negative Ergebnisse werden kurz gecacht.
+     */
+    public Optional<ResolvedKey> resolve(String providedKey) {
+        String hash = hash(providedKey);
+        long now = System.nanoTime();
+
+        long seen;
+        lock.lock();
+        try {
+            Entry entry = known.get(hash);
+            if (entry == null) entry = unknown.get(hash);
+            if (entry != null && entry.expiresAt - now > 0) {
+                return Optional.ofNullable(entry.key);
+            }
+            seen = evictions;
+        } finally {
+            lock.unlock();
+        }
+
+        ResolvedKey resolved = accessKeyRepository.findByKey(providedKey)
+            .map(key -> ResolvedKey.of(hash, key))
+            .orElse(null);
+        // Lief währenddessen ein evict, kann das Ergebnis ein gerade gelöschter Schlüssel sein; put cacht es dann nicht
+        put(hash, resolved, now, seen);
+        return Optional.ofNullable(resolved);
+    }
+
+    /**
+     * Neu angelegte Schlüssel direkt eintragen (überschreibt auch einen gecachten Fehlversuch)
+     */
+    public void seed(AccessKey key) {
+        if (key.key == null) return;
+        String hash = hash(key.key);
+        lock.lock();
+        try {
+            insert(hash, ResolvedKey.of(hash, key), System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Schlüssel aus dem Warmstart-Abbild übernehmen. Sie gelten nur für den Rest der TTL ab verifiedAt, dem Zeitpunkt,
+     * zu dem sie zuletzt aus der Datenbank gelesen wurden; ein älteres Abbild bringt keine Schlüssel mit.
+     * Ergebnis ist die Anzahl übernommener Schlüssel.
+     */
+    public int restore(List<ResolvedKey> keys, Instant verifiedAt) {
+        Duration age = Duration.between(verifiedAt, Instant.now());
+        if (age.isNegative() || age.compareTo(ttl) >= 0) return 0;
+
+        long expiresAt = System.nanoTime() + ttl.minus(age).toNanos();
+        lock.lock();
+        try {
+            for (ResolvedKey key : keys) {
+                unknown.remove(key.hash());
+                known.put(key.hash(), new Entry(key, expiresAt));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return keys.size();
+    }
+
+    /**
+     * Entfernt alle gecachten Schlüssel, die nicht mehr in der Datenbank stehen; nach dem Warmstart, sobald sie erreichbar ist
+     */
+    public void revalidate(List<AccessKey> current) {
+        Set<String> hashes = new HashSet<>(current.size());
+        for (AccessKey key : current) {
+            if (key.key != null) hashes.add(hash(key.key));
+        }
+        lock.lock();
+        try {
+            evictions++;
+            known.keySet().retainAll(hashes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gelöschte Schlüssel sofort entfernen. Zählen und Entfernen unter derselben Sperre wie das Eintragen,
+     * damit ein gleichzeitiges resolve, das den Schlüssel noch vor dem Löschen gelesen hat, ihn danach nicht wieder einträgt.
+     */
+    public void evict(AccessKey key) {
+        if (key.key == null) return;
+        String hash = hash(key.key);
+        lock.lock();
+        try {
+            evictions++;
+            known.remove(hash);
+            unknown.remove(hash);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Trägt nur ein, wenn seit seen kein evict lief
+    private void put(String hash, ResolvedKey key, long now, long seen) {
+        lock.lock();
+        try {
+            if (evictions == seen) insert(hash, key, now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Nur unter lock; das LRU verdrängt bei voller Kapazität den am längsten ungenutzten Eintrag
+    private void insert(String hash, ResolvedKey key, long now) {
+        if (key != null) {
+            unknown.remove(hash);
+            known.put(hash, new Entry(key, now + ttl.toNanos()));
+        } else {
+            known.remove(hash);
+            unknown.put(hash, new Entry(null, now + negativeTtl.toNanos()));
+        }
+    }
+
+    private static Map<String, Entry> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HEX.formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 nicht verfügbar", e);
+        }
+    }
+
+    private record Entry(ResolvedKey key, long expiresAt) { }
+
+    /**
+     * Aufgelöster Schlüssel; hash dient auch als Schlüssel für das Rate-Limit, der Klartext wird nicht behalten
+     */
+    public record ResolvedKey(ObjectId id, String hash, KeyRole role, String userId, Double rateLimitPerSecond, Integer rateLimitBurst) {
+        static ResolvedKey of(String hash, AccessKey key) {
+            return new ResolvedKey(key.id, hash, key.role, key.userId, key.rateLimitPerSecond, key.rateLimitBurst);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package org.acme;
 
 import java.io.IOException;
+import java.security.Principal;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 import org.acme.AccessKey.KeyRole;
+import org.acme.QuizMetrics.AuthOutcome;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import jakarta.annotation.Priority;
@@ -13,6 +16,7 @@ import jakarta.ws.rs.Priorities;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
 import jakarta.ws.rs.ext.Provider;
 
 @Provider
@@ -22,57 +26,90 @@ public class ApiKeyFilter implements ContainerRequestFilter {
     private static final String API_KEY_HEADER = "X-API-Key";
 
     @Inject
-    AccessKeyRepository accessKeyRepository;
+    ApiKeyCache apiKeyCache;
+
+    @Inject
+    QuizMetrics metrics;
+
+    @Inject
+    RateLimiter rateLimiter;
+
+    @Inject
+    KeyUsageTracker keyUsage;
 
     @ConfigProperty(name = "app.master-key", defaultValue = "")
     String masterKey;
 
     @Override
     public void filter(ContainerRequestContext requestContext) throws IOException {
-        RequiredRole requiredRole = determineRequiredRole(requestContext);
+        RequiredRole requiredRole = determineRequiredRole(requestContext.getUriInfo().getPath(), requestContext.getMethod());
         if (requiredRole == RequiredRole.NONE) {
             return;
         }
 
         String providedKey = requestContext.getHeaderString(API_KEY_HEADER);
         if (providedKey == null || providedKey.isBlank()) {
+            metrics.recordAuth(AuthOutcome.MISSING_KEY);
             abort(requestContext, Response.Status.UNAUTHORIZED, "Fehlender API-Schlüssel");
             return;
         }
 
         if (isMasterKey(providedKey)) {
+            metrics.recordAuth(AuthOutcome.MASTER_KEY);
             return;
         }
 
-        var storedKey = accessKeyRepository.findByKey(providedKey)
+        var resolvedKey = apiKeyCache.resolve(providedKey)
             .orElse(null);
 
-        if (storedKey == null) {
+        if (resolvedKey == null) {
+            metrics.recordAuth(AuthOutcome.INVALID_KEY);
             abort(requestContext, Response.Status.UNAUTHORIZED, "Ungültiger API-Schlüssel");
             return;
         }
 
-        if (!hasPermission(storedKey.role, requiredRole)) {
+        long waitNanos = rateLimiter.acquire(resolvedKey);
+        if (waitNanos > 0) {
+            metrics.recordAuth(AuthOutcome.RATE_LIMITED);
+            keyUsage.record(resolvedKey, AuthOutcome.RATE_LIMITED);
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            requestContext.abortWith(Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header("Retry-After", retryAfterSeconds)
+                .entity("{\"error\": \"Zu viele Anfragen, bitte später erneut versuchen\"}")
+                .build());
+            return;
+        }
+
+        if (!hasPermission(resolvedKey.role(), requiredRole)) {
+            metrics.recordAuth(AuthOutcome.FORBIDDEN);
+            keyUsage.record(resolvedKey, AuthOutcome.FORBIDDEN);
             abort(requestContext, Response.Status.FORBIDDEN, "Keine Berechtigung für diese Aktion");
+            return;
         }
+        metrics.recordAuth(AuthOutcome.GRANTED);
+        keyUsage.record(resolvedKey, AuthOutcome.GRANTED);
+        requestContext.setSecurityContext(new KeySecurityContext(resolvedKey, requestContext.getSecurityContext().isSecure()));
     }
 
     private boolean isMasterKey(String providedKey) {
         return masterKey != null && !masterKey.isBlank() && masterKey.equals(providedKey);
     }
 
-    private RequiredRole determineRequiredRole(ContainerRequestContext ctx) {
-        String path = ctx.getUriInfo().getPath();
-        String method = ctx.getMethod();
-
+    static RequiredRole determineRequiredRole(String path, String method) {
         // Schutz für Key-Management
         if (path.startsWith("api/keys")) {
             return RequiredRole.KEY_MANAGER;
         }
 
+        // Prüfungssitzungen, Bewertung und Antwortversuche dürfen auch Lernende nutzen
+        if (path.startsWith("api/quiz/sessions") || path.startsWith("api/quiz/grade") || path.startsWith("api/quiz/attempts")) {
+            return RequiredRole.USER;
+        }
+
         // Schutz für Quiz-API: alle Methoden brauchen mindestens USER, Schreiboperationen ADMIN
         if (path.startsWith("api/quiz")) {
-            if (HttpMethod.POST.equals(method) || HttpMethod.PUT.equals(method) || HttpMethod.DELETE.equals(method)) {
+            if (HttpMethod.POST.equals(method) || HttpMethod.PUT.equals(method) || HttpMethod.PATCH.equals(method)
+                    || HttpMethod.DELETE.equals(method)) {
                 return RequiredRole.ADMIN;
             }
             return RequiredRole.USER;
@@ -81,13 +118,39 @@ public class ApiKeyFilter implements ContainerRequestFilter {
         return RequiredRole.NONE;
     }
 
+    /**
+     * Macht den Schlüssel für Ressourcen sichtbar: Principal ist die UserId, Rollen sind die Schlüsselrollen
+     */
+    record KeySecurityContext(ApiKeyCache.ResolvedKey key, boolean secure) implements SecurityContext {
+
+        @Override
+        public Principal getUserPrincipal() {
+            return key.userId() == null ? null : key::userId;
+        }
+
+        @Override
+        public boolean isUserInRole(String role) {
+            return key.role().name().equals(role);
+        }
+
+        @Override
+        public boolean isSecure() {
+            return secure;
+        }
+
+        @Override
+        public String getAuthenticationScheme() {
+            return API_KEY_HEADER;
+        }
+    }
+
     private void abort(ContainerRequestContext ctx, Response.Status status, String message) {
         ctx.abortWith(Response.status(status)
             .entity("{\"error\": \"" + message + "\"}")
             .build());
     }
 
-    private enum RequiredRole {
+    enum RequiredRole {
         NONE,
         USER,
         ADMIN,
@@ -103,7 +166,7 @@ public class ApiKeyFilter implements ContainerRequestFilter {
         }
     }
 
-    private boolean hasPermission(KeyRole actual, RequiredRole required) {
+    static boolean hasPermission(KeyRole actual, RequiredRole required) {
         if (required == RequiredRole.NONE) return true;
         if (actual == null) return false;
 
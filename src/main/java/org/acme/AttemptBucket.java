@@ -0,0 +1,14 @@
+package org.acme;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Alle Versuche einer Frage in einem Zeitfenster: Zähler und Zeit-Histogramm werden fortgeschrieben, die einzelnen Versuche
+ * legt der Speicher getrennt davon ab, damit das Dokument nicht mit jedem Versuch wächst. Beim Lesen bleibt events leer.
+ */
+public record AttemptBucket(ObjectId questionId, String category, Instant start,
+                            long attempts, long correct, long totalTimeMs, long[] timeHistogram,
+                            List<AnswerAttempt> events) { }
@@ -0,0 +1,159 @@
+package org.acme;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Nimmt Antwortversuche in eine beschränkte Warteschlange auf und schreibt sie gebündelt: je Frage und Zeitfenster
+ * (app.attempts.bucket) ein Bucket, alle Buckets eines Laufs in einem Bulk-Write.
+ * Ist die Warteschlange voll, wird nichts mehr angenommen und der Client muss es später erneut versuchen;
+ * scheitert ein Schreibvorgang, werden seine nicht geschriebenen Buckets zuerst wiederholt, bevor weiter geleert wird. So wächst nichts unbegrenzt,
+ * und ein Ansturm am Ende einer Prüfung erzeugt nur wenige Schreibzugriffe.
+ */
+@ApplicationScoped
+public class AttemptIngestor {
+
+    private static final Logger LOG = Logger.getLogger(AttemptIngestor.class);
+
+    @Inject
+    AttemptStore store;
+
+    @Inject
+    AttemptStatistics statistics;
+
+    @Inject
+    ReviewScheduler reviews;
+
+    @ConfigProperty(name = "app.attempts.queue-capacity", defaultValue = "100000")
+    int queueCapacity;
+
+    @ConfigProperty(name = "app.attempts.batch-size", defaultValue = "5000")
+    int batchSize;
+
+    @ConfigProperty(name = "app.attempts.bucket", defaultValue = "1m")
+    Duration bucket;
+
+    private BlockingQueue<AnswerAttempt> queue;
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    // Nicht geschriebene Buckets des letzten Bulk-Writes, werden vor allem anderen wiederholt
+    private List<AttemptBucket> failed = List.of();
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Übernimmt die Versuche der Reihe nach, bis die Warteschlange voll ist; Ergebnis ist die Anzahl übernommener Versuche
+     */
+    public int submit(List<AnswerAttempt> attempts) {
+        int accepted = 0;
+        for (AnswerAttempt attempt : attempts) {
+            if (!queue.offer(attempt)) break;
+            statistics.record(attempt);
+            reviews.record(attempt);
+            accepted++;
+        }
+        return accepted;
+    }
+
+    @Scheduled(every = "${app.attempts.flush-interval:1s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledDrain() {
+        drain();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        drain();
+    }
+
+    /**
+     * Leert die Warteschlange in Blöcken zu batch-size Versuchen; bricht beim ersten gescheiterten Schreibvorgang ab
+     */
+    public void drain() {
+        if (!drainLock.tryLock()) return;
+        try {
+            // Erst der Bestand, sonst wären neu geschriebene Versuche nach dem Nachladen doppelt gezählt
+            if (!statistics.load()) return;
+            if (!failed.isEmpty() && !write(failed)) return;
+
+            List<AnswerAttempt> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+            while (queue.drainTo(batch, batchSize) > 0) {
+                if (!write(toBuckets(batch))) return;
+                batch.clear();
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // Wiederholt werden nur die Buckets, die der Speicher als nicht geschrieben meldet; die übrigen sind schon gezählt
+    private boolean write(List<AttemptBucket> buckets) {
+        try {
+            failed = store.appendBuckets(buckets);
+        } catch (RuntimeException e) {
+            LOG.warnf("%d Buckets mit Antwortversuchen nicht geschrieben, neuer Versuch im nächsten Lauf: %s", buckets.size(), e.getMessage());
+            failed = buckets;
+            return false;
+        }
+        if (failed.isEmpty()) return true;
+        LOG.warnf("%d von %d Buckets mit Antwortversuchen nicht geschrieben, neuer Versuch im nächsten Lauf", failed.size(), buckets.size());
+        return false;
+    }
+
+    private List<AttemptBucket> toBuckets(List<AnswerAttempt> attempts) {
+        long bucketMs = bucket.toMillis();
+        Map<BucketKey, Builder> builders = new LinkedHashMap<>();
+        for (AnswerAttempt attempt : attempts) {
+            long start = attempt.at().toEpochMilli() / bucketMs * bucketMs;
+            builders.computeIfAbsent(new BucketKey(attempt.questionId(), start), key -> new Builder(attempt.category())).add(attempt);
+        }
+        List<AttemptBucket> buckets = new ArrayList<>(builders.size());
+        builders.forEach((key, builder) -> buckets.add(builder.build(key)));
+        return buckets;
+    }
+
+    private record BucketKey(ObjectId questionId, long start) { }
+
+    private static final class Builder {
+        final String category;
+        final List<AnswerAttempt> events = new ArrayList<>();
+        final long[] histogram = new long[AttemptStatistics.TIME_BUCKETS];
+        long correct;
+        long totalTimeMs;
+
+        Builder(String category) {
+            this.category = category;
+        }
+
+        void add(AnswerAttempt attempt) {
+            events.add(attempt);
+            if (attempt.correct()) correct++;
+            totalTimeMs += attempt.timeTakenMs();
+            histogram[AttemptStatistics.timeBucket(attempt.timeTakenMs())]++;
+        }
+
+        AttemptBucket build(BucketKey key) {
+            return new AttemptBucket(key.questionId(), category, Instant.ofEpochMilli(key.start()),
+                events.size(), correct, totalTimeMs, histogram, events);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.acme;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+
+@Path("/api/quiz/attempts")
+@RunOnVirtualThread
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class AttemptResource {
+
+    @Inject
+    AttemptIngestor ingestor;
+
+    @Inject
+    AttemptStatistics statistics;
+
+    @Inject
+    QuestionCatalog catalog;
+
+    @Inject
+    GradingService gradingService;
+
+    @ConfigProperty(name = "app.attempts.max-per-request", defaultValue = "500")
+    int maxPerRequest;
+
+    /**
+     * Nimmt Antwortversuche mit der abgegebenen Antwort an und bewertet sie selbst; 202, sobald sie in der Warteschlange sind. Ist sie voll, 503 mit Retry-After
+     * und der Anzahl übernommener Versuche, damit der Client nur den Rest erneut sendet.
+     */
+    @POST
+    public Response submit(List<AttemptRequest> requests, @Context SecurityContext security) {
+        if (requests == null || requests.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", "Antwortversuche fehlen"))
+                .build();
+        }
+        if (requests.size() > maxPerRequest) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", "Höchstens " + maxPerRequest + " Antwortversuche je Anfrage"))
+                .build();
+        }
+
+        List<QuizQuestion> questions = new ArrayList<>(requests.size());
+        List<GradingService.Answer> answers = new ArrayList<>(requests.size());
+        for (AttemptRequest request : requests) {
+            if (request == null || request.questionId == null || !ObjectId.isValid(request.questionId) || request.timeTakenMs < 0) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Ungültiger Antwortversuch"))
+                    .build();
+            }
+            QuizQuestion question = catalog.findById(new ObjectId(request.questionId));
+            if (question == null) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Unbekannte Frage " + request.questionId))
+                    .build();
+            }
+            questions.add(question);
+            answers.add(request.toAnswer(question.id));
+        }
+
+        // Richtig oder falsch entscheidet der Server anhand der abgegebenen Antwort, nicht der Client
+        List<GradingService.GradedAnswer> graded = gradingService.grade(answers).results();
+        String userId = security.getUserPrincipal() == null ? null : security.getUserPrincipal().getName();
+        Instant now = Instant.now();
+        List<AnswerAttempt> attempts = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            QuizQuestion question = questions.get(i);
+            attempts.add(new AnswerAttempt(question.id, question.category, userId, graded.get(i).correct(), requests.get(i).timeTakenMs, now));
+        }
+
+        int accepted = ingestor.submit(attempts);
+        if (accepted < attempts.size()) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", 1)
+                .entity(Map.of("error", "Zu viele Antwortversuche, bitte später erneut senden", "accepted", accepted))
+                .build();
+        }
+        return Response.accepted(Map.of("accepted", accepted)).build();
+    }
+
+    @GET
+    @Path("/questions/{id}")
+    public Response question(@PathParam("id") String id) {
+        QuizQuestion question = ObjectId.isValid(id) ? catalog.findById(new ObjectId(id)) : null;
+        AttemptStatistics.QuestionPerformance performance = question == null ? null : statistics.question(question);
+        if (performance == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", "Keine Antwortversuche gefunden"))
+                .build();
+        }
+        return Response.ok(performance).build();
+    }
+
+    /**
+     * Fragen mit Antwortversuchen, schwerste zuerst
+     */
+    @GET
+    @Path("/questions")
+    public List<AttemptStatistics.QuestionPerformance> questions(@QueryParam("category") String category, @QueryParam("limit") int limit) {
+        return statistics.questions(catalog, category, QuestionStore.clampPageSize(limit));
+    }
+
+    @GET
+    @Path("/categories")
+    public List<AttemptStatistics.CategoryPerformance> categories() {
+        return statistics.categories();
+    }
+
+    /**
+     * Ein Antwortversuch mit der Antwort in derselben Form wie bei /api/quiz/grade
+     */
+    public static class AttemptRequest {
+        public String questionId;
+        public List<Integer> selectedIndices;
+        public String textAnswer;
+        public List<QuizQuestion.CategoryMapping> mappings;
+        public long timeTakenMs;
+
+        GradingService.Answer toAnswer(ObjectId id) {
+            GradingService.Answer answer = new GradingService.Answer();
+            answer.questionId = id;
+            answer.selectedIndices = selectedIndices;
+            answer.textAnswer = textAnswer;
+            answer.mappings = mappings;
+            return answer;
+        }
+    }
+}
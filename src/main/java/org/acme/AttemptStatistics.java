@@ -0,0 +1,191 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Laufend fortgeschriebene Aggregate der Antwortversuche je Frage und je Kategorie: Erfolgsquote und Median der Antwortzeit.
+ * Jeder Versuch ändert nur ein paar Zähler; der Median kommt aus einem Histogramm mit Fächern im Abstand √2,
+ * ist also auf etwa ±20 % genau und braucht keine Einzelwerte.
+ * Der Bestand aus der Datenbank wird einmal nachgeladen, bevor der erste neue Versuch geschrieben wird.
+ */
+@ApplicationScoped
+public class AttemptStatistics {
+
+    private static final Logger LOG = Logger.getLogger(AttemptStatistics.class);
+
+    static final int TIME_BUCKETS = 32;
+    private static final double FIRST_BUCKET_MS = 250;
+
+    @Inject
+    AttemptStore store;
+
+    @ConfigProperty(name = "app.attempts.min-attempts-for-difficulty", defaultValue = "20")
+    int minAttemptsForDifficulty;
+
+    private final Map<ObjectId, Performance> byQuestion = new ConcurrentHashMap<>();
+    private final Map<String, Performance> byCategory = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public void record(AnswerAttempt attempt) {
+        long[] histogram = new long[TIME_BUCKETS];
+        histogram[timeBucket(attempt.timeTakenMs())] = 1;
+        add(byQuestion, byCategory, attempt.questionId(), attempt.category(), 1, attempt.correct() ? 1 : 0, histogram);
+    }
+
+    /**
+     * Lädt die Summen je Frage und je Kategorie einmal aus dem Speicher, nicht die einzelnen Buckets.
+     * Erst in eigene Zähler, damit ein abgebrochener Versuch nichts doppelt zählt.
+     * Muss vor dem ersten Schreiben neuer Versuche gelingen, sonst wären diese danach doppelt enthalten.
+     */
+    public synchronized boolean load() {
+        if (loaded) return true;
+        Map<ObjectId, Performance> questions = new HashMap<>();
+        Map<String, Performance> categories = new HashMap<>();
+        try {
+            store.forEachTotal(total -> {
+                if (total.questionId() != null) {
+                    questions.computeIfAbsent(total.questionId(), id -> new Performance())
+                        .add(total.attempts(), total.correct(), total.timeHistogram());
+                } else if (total.category() != null) {
+                    categories.computeIfAbsent(total.category(), c -> new Performance())
+                        .add(total.attempts(), total.correct(), total.timeHistogram());
+                }
+            });
+        } catch (RuntimeException e) {
+            LOG.warnf("Antwortstatistik konnte nicht geladen werden: %s", e.getMessage());
+            return false;
+        }
+        questions.forEach((id, performance) -> byQuestion.computeIfAbsent(id, i -> new Performance()).add(performance));
+        categories.forEach((category, performance) -> byCategory.computeIfAbsent(category, c -> new Performance()).add(performance));
+        loaded = true;
+        return true;
+    }
+
+    public QuestionPerformance question(QuizQuestion question) {
+        Performance performance = byQuestion.get(question.id);
+        return performance == null ? null : questionView(question, performance);
+    }
+
+    /**
+     * Fragen mit Versuchen, schwerste zuerst; category schränkt optional ein
+     */
+    public List<QuestionPerformance> questions(QuestionCatalog catalog, String category, int limit) {
+        List<QuestionPerformance> items = new ArrayList<>();
+        byQuestion.forEach((id, performance) -> {
+            QuizQuestion question = catalog.findById(id);
+            if (question == null || (category != null && !category.equals(question.category))) return;
+            items.add(questionView(question, performance));
+        });
+        items.sort(Comparator.comparingDouble(QuestionPerformance::successRate));
+        return items.size() > limit ? List.copyOf(items.subList(0, limit)) : items;
+    }
+
+    public List<CategoryPerformance> categories() {
+        List<CategoryPerformance> items = new ArrayList<>(byCategory.size());
+        byCategory.forEach((category, performance) -> {
+            Snapshot snapshot = performance.snapshot();
+            items.add(new CategoryPerformance(category, snapshot.attempts, snapshot.successRate(), snapshot.medianTimeMs()));
+        });
+        items.sort(Comparator.comparing(CategoryPerformance::category));
+        return items;
+    }
+
+    private QuestionPerformance questionView(QuizQuestion question, Performance performance) {
+        Snapshot snapshot = performance.snapshot();
+        String empirical = null;
+        if (snapshot.attempts >= minAttemptsForDifficulty) {
+            double rate = snapshot.successRate();
+            empirical = rate >= 0.8 ? "leicht" : rate >= 0.5 ? "mittel" : "schwer";
+        }
+        return new QuestionPerformance(question.id.toHexString(), question.category, question.difficulty,
+            snapshot.attempts, snapshot.successRate(), snapshot.medianTimeMs(), empirical);
+    }
+
+    private static void add(Map<ObjectId, Performance> questions, Map<String, Performance> categories,
+                            ObjectId questionId, String category, long attempts, long correct, long[] histogram) {
+        questions.computeIfAbsent(questionId, id -> new Performance()).add(attempts, correct, histogram);
+        if (category != null) {
+            categories.computeIfAbsent(category, c -> new Performance()).add(attempts, correct, histogram);
+        }
+    }
+
+    /**
+     * Fach i deckt Zeiten bis 250 ms · √2^i ab, das letzte Fach alles darüber
+     */
+    static int timeBucket(long timeTakenMs) {
+        if (timeTakenMs <= FIRST_BUCKET_MS) return 0;
+        int bucket = (int) Math.ceil(2 * (Math.log(timeTakenMs / FIRST_BUCKET_MS) / Math.log(2)));
+        return Math.min(bucket, TIME_BUCKETS - 1);
+    }
+
+    static long bucketUpperBoundMs(int bucket) {
+        return Math.round(FIRST_BUCKET_MS * Math.pow(2, bucket / 2.0));
+    }
+
+    private static final class Performance {
+        final LongAdder attempts = new LongAdder();
+        final LongAdder correct = new LongAdder();
+        final AtomicLongArray histogram = new AtomicLongArray(TIME_BUCKETS);
+
+        void add(long attempts, long correct, long[] times) {
+            this.attempts.add(attempts);
+            this.correct.add(correct);
+            for (int i = 0; i < times.length; i++) {
+                if (times[i] != 0) histogram.addAndGet(i, times[i]);
+            }
+        }
+
+        void add(Performance other) {
+            long[] times = new long[TIME_BUCKETS];
+            for (int i = 0; i < TIME_BUCKETS; i++) {
+                times[i] = other.histogram.get(i);
+            }
+            add(other.attempts.sum(), other.correct.sum(), times);
+        }
+
+        Snapshot snapshot() {
+            long[] times = new long[TIME_BUCKETS];
+            for (int i = 0; i < TIME_BUCKETS; i++) {
+                times[i] = histogram.get(i);
+            }
+            return new Snapshot(attempts.sum(), correct.sum(), times);
+        }
+    }
+
+    private record Snapshot(long attempts, long correct, long[] histogram) {
+        double successRate() {
+            return attempts == 0 ? 0 : Math.min(1.0, (double) correct / attempts);
+        }
+
+        Long medianTimeMs() {
+            long total = 0;
+            for (long count : histogram) total += count;
+            if (total == 0) return null;
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen * 2 >= total) return bucketUpperBoundMs(i);
+            }
+            return bucketUpperBoundMs(histogram.length - 1);
+        }
+    }
+
+    public record QuestionPerformance(String questionId, String category, String difficulty, long attempts,
+                                      double successRate, Long medianTimeMs, String empiricalDifficulty) { }
+
+    public record CategoryPerformance(String category, long attempts, double successRate, Long medianTimeMs) { }
+}
@@ -0,0 +1,22 @@
+package org.acme;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Speicher-Abstraktion für Antwortversuche, analog zu {@link QuestionStore}
+ */
+public interface AttemptStore {
+
+    /**
+     * Schreibt alle Buckets in einem Zugriff fort; vorhandene Buckets derselben Frage und desselben Fensters werden ergänzt.
+     * Ergebnis sind die Buckets, die nicht geschrieben wurden; nur diese dürfen wiederholt werden, die übrigen sind
+     * schon gezählt. Eine Exception heißt, dass keiner geschrieben wurde.
+     */
+    List<AttemptBucket> appendBuckets(List<AttemptBucket> buckets);
+
+    /**
+     * Läuft über die Summen je Frage und je Kategorie; die Anzahl hängt nicht davon ab, wie lange schon gezählt wird
+     */
+    void forEachTotal(Consumer<AttemptTotal> action);
+}
@@ -0,0 +1,10 @@
+package org.acme;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Summe aller Versuche einer Frage (questionId gesetzt) oder einer Kategorie (questionId null), fortgeschrieben mit
+ * jedem Schreibzugriff. Beim Start wird nur das gelesen, nicht die einzelnen Buckets.
+ */
+public record AttemptTotal(ObjectId questionId, String category,
+                           long attempts, long correct, long totalTimeMs, long[] timeHistogram) { }
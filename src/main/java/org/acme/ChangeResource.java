@@ -0,0 +1,49 @@
+package org.acme;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+@Path("/api/quiz/changes")
+@RunOnVirtualThread
+public class ChangeResource {
+
+    @Inject
+    QuestionChanges changes;
+
+    /**
+     * Geänderte Fragen und gelöschte IDs seit since; ohne since nur die aktuelle Nummer mit reset
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public QuestionChanges.ChangeSet since(@QueryParam("since") Long since) {
+        return changes.since(since == null ? -1 : since);
+    }
+
+    /**
+     * Laufende Änderungen als Server-Sent Events; Last-Event-ID setzt nach einem Abbruch fort
+     */
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void stream(@Context SseEventSink sink, @Context Sse sse,
+                       @QueryParam("since") Long since, @HeaderParam("Last-Event-ID") String lastEventId) {
+        Long from = since;
+        if (lastEventId != null) {
+            try {
+                from = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                // Unbekannte ID: wie ohne Angabe, der Client bekommt nur neue Änderungen
+            }
+        }
+        changes.subscribe(sink, sse, from);
+    }
+}
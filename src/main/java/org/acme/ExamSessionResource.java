@@ -0,0 +1,113 @@
+package org.acme;
+
+import java.util.Map;
+import java.util.Optional;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+@Path("/api/quiz/sessions")
+@RunOnVirtualThread
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class ExamSessionResource {
+
+    @Inject
+    ExamSessionService sessionService;
+
+    @POST
+    public Response create(CreateSessionRequest request) {
+        if (request == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", "Anfrage fehlt"))
+                .build();
+        }
+
+        try {
+            ExamSessionService.ExamSession session = sessionService.create(request.count, request.type, request.category, request.difficulty);
+            if (session.size() == 0) {
+                sessionService.delete(session.id());
+                return Response.status(Response.Status.NOT_FOUND)
+                    .entity(Map.of("error", "Keine Fragen gefunden"))
+                    .build();
+            }
+            return Response.status(Response.Status.CREATED)
+                .entity(new SessionView(session.id(), session.size(), session.expiresAt().toString()))
+                .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(Map.of("error", e.getMessage()))
+                .build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .entity(Map.of("error", e.getMessage()))
+                .build();
+        }
+    }
+
+    /**
+     * Frage an Position index; gelöschte Fragen werden übersprungen, index in der Antwort ist die tatsächliche Position
+     */
+    @GET
+    @Path("/{id}/questions/{index}")
+    public Response question(@PathParam("id") String id, @PathParam("index") int index) {
+        return sessionService.find(id)
+            .map(session -> toResponse(sessionService.question(session, index)))
+            .orElseGet(ExamSessionResource::sessionNotFound);
+    }
+
+    @GET
+    @Path("/{id}/next")
+    public Response next(@PathParam("id") String id) {
+        return sessionService.find(id)
+            .map(session -> toResponse(sessionService.next(session)))
+            .orElseGet(ExamSessionResource::sessionNotFound);
+    }
+
+    @GET
+    @Path("/{id}/previous")
+    public Response previous(@PathParam("id") String id) {
+        return sessionService.find(id)
+            .map(session -> toResponse(sessionService.previous(session)))
+            .orElseGet(ExamSessionResource::sessionNotFound);
+    }
+
+    @DELETE
+    @Path("/{id}")
+    public Response delete(@PathParam("id") String id) {
+        sessionService.delete(id);
+        return Response.noContent().build();
+    }
+
+    private static Response toResponse(Optional<ExamSessionService.SessionQuestion> question) {
+        return question
+            .map(q -> Response.ok(q).build())
+            .orElseGet(() -> Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", "Keine weitere Frage"))
+                .build());
+    }
+
+    private static Response sessionNotFound() {
+        return Response.status(Response.Status.NOT_FOUND)
+            .entity(Map.of("error", "Sitzung nicht gefunden oder abgelaufen"))
+            .build();
+    }
+
+    public static class CreateSessionRequest {
+        public int count;
+        public String type;
+        public String category;
+        public String difficulty;
+    }
+
+    public record SessionView(String sessionId, int size, String expiresAt) { }
+}
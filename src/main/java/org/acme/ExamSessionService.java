@@ -0,0 +1,154 @@
+package org.acme;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Prüfungssitzungen: beim Anlegen werden nur die IDs zufällig gezogen,
+ * die Fragen selbst werden erst beim Blättern einzeln aus dem Katalog gelesen.
+ */
+@ApplicationScoped
+public class ExamSessionService {
+
+    @Inject
+    QuestionCatalog catalog;
+
+    @ConfigProperty(name = "app.exam.session-ttl", defaultValue = "2h")
+    Duration sessionTtl;
+
+    @ConfigProperty(name = "app.exam.max-questions", defaultValue = "100")
+    int maxQuestions;
+
+    @ConfigProperty(name = "app.exam.max-sessions", defaultValue = "10000")
+    int maxSessions;
+
+    private final Map<String, ExamSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Lege eine Sitzung mit bis zu count verschiedenen Fragen an
+     */
+    public ExamSession create(int count, String type, String category, String difficulty) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Anzahl der Fragen muss größer 0 sein");
+        }
+        int size = Math.min(count, maxQuestions);
+
+        evictExpired();
+        if (sessions.size() >= maxSessions) {
+            throw new IllegalStateException("Zu viele offene Sitzungen");
+        }
+
+        List<ObjectId> questionIds = catalog.sampleIds(new QuestionFilter(type, category, difficulty), size);
+        ExamSession session = new ExamSession(UUID.randomUUID().toString(), questionIds, Instant.now().plus(sessionTtl));
+        sessions.put(session.id, session);
+        return session;
+    }
+
+    public Optional<ExamSession> find(String sessionId) {
+        ExamSession session = sessions.get(sessionId);
+        if (session == null) {
+            return Optional.empty();
+        }
+        if (session.isExpired(Instant.now())) {
+            sessions.remove(sessionId, session);
+            return Optional.empty();
+        }
+        return Optional.of(session);
+    }
+
+    /**
+     * Frage an Position index, ohne die Sitzung zu verändern; ist sie inzwischen gelöscht, die nächste noch vorhandene.
+     * Leer, wenn ab index keine mehr übrig ist. Mehrfach abgerufen liefert sie dasselbe, ein Client kann also wiederholen.
+     */
+    public Optional<SessionQuestion> question(ExamSession session, int index) {
+        return load(session, index, 1);
+    }
+
+    /**
+     * Nächste noch vorhandene Frage der Sitzung oder leer, wenn das Ende erreicht ist.
+     * Die Position rückt erst weiter, wenn die Frage geladen ist.
+     */
+    public Optional<SessionQuestion> next(ExamSession session) {
+        Optional<SessionQuestion> question = load(session, session.position() + 1, 1);
+        question.ifPresent(q -> session.moveTo(q.index()));
+        return question;
+    }
+
+    /**
+     * Vorherige noch vorhandene Frage der Sitzung oder leer, wenn der Anfang erreicht ist
+     */
+    public Optional<SessionQuestion> previous(ExamSession session) {
+        Optional<SessionQuestion> question = load(session, session.position() - 1, -1);
+        question.ifPresent(q -> session.moveTo(q.index()));
+        return question;
+    }
+
+    public void delete(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    // Ab index in Richtung step die erste Frage, die noch existiert; gelöschte werden übersprungen
+    private Optional<SessionQuestion> load(ExamSession session, int index, int step) {
+        for (int i = index; i >= 0 && i < session.questionIds.size(); i += step) {
+            int position = i;
+            QuizQuestion found = catalog.findById(session.questionIds.get(position));
+            if (found != null) return Optional.of(new SessionQuestion(session.id, position, session.questionIds.size(), found));
+        }
+        return Optional.empty();
+    }
+
+    private void evictExpired() {
+        Instant now = Instant.now();
+        sessions.values().removeIf(session -> session.isExpired(now));
+    }
+
+    public static class ExamSession {
+        final String id;
+        final List<ObjectId> questionIds;
+        final Instant expiresAt;
+        private int position = -1;
+
+        ExamSession(String id, List<ObjectId> questionIds, Instant expiresAt) {
+            this.id = id;
+            this.questionIds = questionIds;
+            this.expiresAt = expiresAt;
+        }
+
+        synchronized int position() {
+            return position;
+        }
+
+        synchronized void moveTo(int index) {
+            position = index;
+        }
+
+        boolean isExpired(Instant now) {
+            return now.isAfter(expiresAt);
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public int size() {
+            return questionIds.size();
+        }
+
+        public Instant expiresAt() {
+            return expiresAt;
+        }
+    }
+
+    public record SessionQuestion(String sessionId, int index, int size, QuizQuestion question) { }
+}
@@ -0,0 +1,43 @@
+package org.acme;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jboss.logging.Logger;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Protokolliert einmalig die Zeit vom Prozessstart bis zur ersten erfolgreich beantworteten API-Anfrage,
+ * um JVM- und Native-Build mit und ohne Warmstart vergleichen zu können
+ */
+@Provider
+public class FirstRequestTimer implements ContainerResponseFilter {
+
+    private static final Logger LOG = Logger.getLogger(FirstRequestTimer.class);
+
+    // Fallback, falls das Betriebssystem keinen Startzeitpunkt liefert
+    private static final Instant CLASS_LOADED = Instant.now();
+
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    @Inject
+    WarmStart warmStart;
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (done.get() || response.getStatus() >= 400 || !request.getUriInfo().getPath().startsWith("api/")) {
+            return;
+        }
+        if (done.compareAndSet(false, true)) {
+            Instant processStart = ProcessHandle.current().info().startInstant().orElse(CLASS_LOADED);
+            LOG.infof("Erste API-Anfrage %d ms nach Prozessstart beantwortet (Warmstart: %s)",
+                Duration.between(processStart, Instant.now()).toMillis(), warmStart.isRestored() ? "ja" : "nein");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Serverseitige Bewertung vieler Antworten auf einmal gegen gecachte, vorkompilierte Lösungsschlüssel
+ */
+@ApplicationScoped
+public class GradingService {
+
+    @Inject
+    QuestionStore repository;
+
+    @ConfigProperty(name = "app.grading.cache-max-size", defaultValue = "100000")
+    int maxCachedKeys;
+
+    private final Map<ObjectId, AnswerKey> keys = new ConcurrentHashMap<>();
+
+    // Zählt jede Invalidierung; ein Schlüssel wird nur gecacht, wenn seit dem Lesen keine dazwischenkam
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Bewerte alle Antworten; fehlende Schlüssel werden mit einer einzigen $in-Abfrage nachgeladen
+     */
+    public GradingResult grade(List<Answer> answers) {
+        Map<ObjectId, AnswerKey> loaded = loadMissingKeys(answers);
+
+        List<GradedAnswer> results = new ArrayList<>(answers.size());
+        int correct = 0;
+        for (Answer answer : answers) {
+            AnswerKey key = answer.questionId == null ? null : loaded.getOrDefault(answer.questionId, keys.get(answer.questionId));
+            if (key == null) {
+                results.add(new GradedAnswer(answer.questionId == null ? null : answer.questionId.toHexString(), false, false));
+                continue;
+            }
+            boolean isCorrect = key.grade(answer);
+            if (isCorrect) correct++;
+            results.add(new GradedAnswer(answer.questionId.toHexString(), true, isCorrect));
+        }
+        return new GradingResult(answers.size(), correct, results);
+    }
+
+    public void invalidate(ObjectId questionId) {
+        // Zählen und Entfernen in compute, damit ein gleichzeitiges Nachladen derselben ID danach sieht, dass es veraltet ist
+        keys.compute(questionId, (id, key) -> {
+            generation.incrementAndGet();
+            return null;
+        });
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        keys.clear();
+    }
+
+    /**
+     * Lädt fehlende Schlüssel; für diese Bewertung gelten sie immer, in den Cache kommen sie nur,
+     * wenn zwischen Lesen und Eintragen keine Invalidierung lief. Sonst könnte ein vor einer Änderung gelesener
+     * Stand den danach entfernten Schlüssel wieder eintragen.
+     */
+    private Map<ObjectId, AnswerKey> loadMissingKeys(List<Answer> answers) {
+        List<ObjectId> missing = new ArrayList<>();
+        for (Answer answer : answers) {
+            if (answer.questionId != null && !keys.containsKey(answer.questionId)) {
+                missing.add(answer.questionId);
+            }
+        }
+        if (missing.isEmpty()) return Map.of();
+
+        if (keys.size() + missing.size() > maxCachedKeys) {
+            keys.clear();
+        }
+        long seen = generation.get();
+        Map<ObjectId, AnswerKey> loaded = new HashMap<>();
+        for (QuizQuestion question : repository.findByIds(missing)) {
+            AnswerKey key = AnswerKey.compile(question);
+            loaded.put(question.id, key);
+            keys.compute(question.id, (id, cached) -> generation.get() == seen ? key : cached);
+        }
+        return loaded;
+    }
+
+    public static class Answer {
+        public ObjectId questionId;
+        public List<Integer> selectedIndices;
+        public String textAnswer;
+        public List<QuizQuestion.CategoryMapping> mappings;
+    }
+
+    public static class GradeRequest {
+        public List<Answer> answers;
+    }
+
+    public record GradedAnswer(String questionId, boolean found, boolean correct) { }
+
+    public record GradingResult(int total, int correct, List<GradedAnswer> results) { }
+}
@@ -0,0 +1,103 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.types.ObjectId;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * API-Schlüssel im Heap mit Hash-Index auf dem Schlüssel, Gegenstück zu {@link InMemoryQuestionStore}
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "app.storage.type", stringValue = "memory")
+public class InMemoryAccessKeyStore implements AccessKeyStore {
+
+    private final Map<ObjectId, AccessKey> keys = new ConcurrentHashMap<>();
+    private final Map<String, ObjectId> byKey = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    @Override
+    public List<AccessKey> listAll() {
+        List<AccessKey> all = new ArrayList<>(keys.size());
+        for (AccessKey key : keys.values()) {
+            all.add(copy(key));
+        }
+        return all;
+    }
+
+    @Override
+    public AccessKey findById(ObjectId id) {
+        AccessKey key = keys.get(id);
+        return key == null ? null : copy(key);
+    }
+
+    @Override
+    public Optional<AccessKey> findByKey(String key) {
+        ObjectId id = byKey.get(key);
+        return id == null ? Optional.empty() : Optional.ofNullable(findById(id));
+    }
+
+    @Override
+    public void persist(AccessKey key) {
+        synchronized (writeLock) {
+            if (key.id == null) {
+                key.id = new ObjectId();
+            }
+            AccessKey previous = keys.put(key.id, copy(key));
+            if (previous != null && previous.key != null) byKey.remove(previous.key);
+            if (key.key != null) byKey.put(key.key, key.id);
+        }
+    }
+
+    @Override
+    public boolean deleteById(ObjectId id) {
+        synchronized (writeLock) {
+            AccessKey previous = keys.remove(id);
+            if (previous == null) return false;
+            if (previous.key != null) byKey.remove(previous.key);
+            return true;
+        }
+    }
+
+    @Override
+    public List<KeyUsageTracker.KeyUsage> recordUsage(List<KeyUsageTracker.KeyUsage> usage) {
+        synchronized (writeLock) {
+            for (KeyUsageTracker.KeyUsage entry : usage) {
+                AccessKey key = keys.get(entry.id());
+                if (key == null) continue;
+                key.requestCount += entry.requests();
+                key.forbiddenCount += entry.forbidden();
+                key.rateLimitedCount += entry.rateLimited();
+                if (key.lastUsedAt == null || key.lastUsedAt.isBefore(entry.lastSeen())) {
+                    key.lastUsedAt = entry.lastSeen();
+                }
+            }
+        }
+        return List.of();
+    }
+
+    private static AccessKey copy(AccessKey source) {
+        AccessKey copy = new AccessKey();
+        copy.id = source.id;
+        copy.key = source.key;
+        copy.role = source.role;
+        copy.label = source.label;
+        copy.userId = source.userId;
+        copy.displayName = source.displayName;
+        copy.createdAt = source.createdAt;
+        copy.rateLimitPerSecond = source.rateLimitPerSecond;
+        copy.rateLimitBurst = source.rateLimitBurst;
+        copy.requestCount = source.requestCount;
+        copy.forbiddenCount = source.forbiddenCount;
+        copy.rateLimitedCount = source.rateLimitedCount;
+        copy.lastUsedAt = source.lastUsedAt;
+        return copy;
+    }
+}
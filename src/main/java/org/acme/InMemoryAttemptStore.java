@@ -0,0 +1,83 @@
+package org.acme;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.bson.types.ObjectId;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Antwortversuche im Heap, Gegenstück zu {@link InMemoryQuestionStore}
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "app.storage.type", stringValue = "memory")
+public class InMemoryAttemptStore implements AttemptStore {
+
+    private final Map<BucketKey, AttemptBucket> buckets = new ConcurrentHashMap<>();
+    private final List<AnswerAttempt> events = new ArrayList<>();
+    private final Map<ObjectId, AttemptTotal> byQuestion = new ConcurrentHashMap<>();
+    private final Map<String, AttemptTotal> byCategory = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    @Override
+    public List<AttemptBucket> appendBuckets(List<AttemptBucket> batch) {
+        synchronized (writeLock) {
+            for (AttemptBucket bucket : batch) {
+                buckets.merge(new BucketKey(bucket.questionId(), bucket.start()), counters(bucket), InMemoryAttemptStore::combine);
+                events.addAll(bucket.events());
+                byQuestion.merge(bucket.questionId(), total(bucket.questionId(), bucket), InMemoryAttemptStore::combine);
+                if (bucket.category() != null) {
+                    byCategory.merge(bucket.category(), total(null, bucket), InMemoryAttemptStore::combine);
+                }
+            }
+        }
+        return List.of();
+    }
+
+    @Override
+    public void forEachTotal(Consumer<AttemptTotal> action) {
+        byQuestion.values().forEach(action);
+        byCategory.values().forEach(action);
+    }
+
+    private static AttemptTotal total(ObjectId questionId, AttemptBucket bucket) {
+        return new AttemptTotal(questionId, bucket.category(), bucket.attempts(), bucket.correct(), bucket.totalTimeMs(),
+            bucket.timeHistogram().clone());
+    }
+
+    // Wie $inc: die gespeicherte Summe wird nie verändert, sondern ersetzt
+    private static AttemptTotal combine(AttemptTotal stored, AttemptTotal added) {
+        long[] histogram = stored.timeHistogram().clone();
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] += added.timeHistogram()[i];
+        }
+        return new AttemptTotal(stored.questionId(), stored.category() != null ? stored.category() : added.category(),
+            stored.attempts() + added.attempts(), stored.correct() + added.correct(), stored.totalTimeMs() + added.totalTimeMs(),
+            histogram);
+    }
+
+    private static AttemptBucket combine(AttemptBucket stored, AttemptBucket added) {
+        long[] histogram = stored.timeHistogram().clone();
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] += added.timeHistogram()[i];
+        }
+        return new AttemptBucket(stored.questionId(), stored.category() != null ? stored.category() : added.category(), stored.start(),
+            stored.attempts() + added.attempts(), stored.correct() + added.correct(), stored.totalTimeMs() + added.totalTimeMs(),
+            histogram, List.of());
+    }
+
+    // Wie in MongoDB nur die Zähler; die einzelnen Versuche liegen getrennt in events
+    private static AttemptBucket counters(AttemptBucket bucket) {
+        return new AttemptBucket(bucket.questionId(), bucket.category(), bucket.start(), bucket.attempts(), bucket.correct(),
+            bucket.totalTimeMs(), bucket.timeHistogram().clone(), List.of());
+    }
+
+    private record BucketKey(ObjectId questionId, Instant start) { }
+}
@@ -0,0 +1,292 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.bson.types.ObjectId;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Fragen im Heap, für Tests, Benchmarks und Demos ohne MongoDB.
+ * Sekundärindizes auf Kategorie, Schwierigkeit und Fragetyp sind nach ID sortiert, damit Keyset-Pagination
+ * direkt auf dem kleinsten passenden Index laufen kann. Gespeichert und herausgegeben werden Kopien,
+ * so wie bei MongoDB jeder Lesezugriff ein neues Objekt liefert.
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "app.storage.type", stringValue = "memory")
+public class InMemoryQuestionStore implements QuestionStore {
+
+    private final ConcurrentSkipListMap<ObjectId, QuizQuestion> questions = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableSet<ObjectId>> byCategory = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<ObjectId>> byDifficulty = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<ObjectId>> byType = new ConcurrentHashMap<>();
+
+    // Schreibzugriffe serialisieren, damit Dokument und Indizes zusammen wechseln; Lesen bleibt lock-frei
+    private final Object writeLock = new Object();
+    private final AtomicLong revision = new AtomicLong();
+
+    @Override
+    public List<QuizQuestion> listAll() {
+        List<QuizQuestion> all = new ArrayList<>(questions.size());
+        for (QuizQuestion question : questions.values()) {
+            all.add(question.copy());
+        }
+        return all;
+    }
+
+    @Override
+    public QuizQuestion findById(ObjectId id) {
+        QuizQuestion question = questions.get(id);
+        return question == null ? null : question.copy();
+    }
+
+    @Override
+    public List<QuizQuestion> findByIds(Collection<ObjectId> ids) {
+        List<QuizQuestion> found = new ArrayList<>(ids.size());
+        for (ObjectId id : ids) {
+            QuizQuestion question = questions.get(id);
+            if (question != null) found.add(question.copy());
+        }
+        return found;
+    }
+
+    @Override
+    public QuestionPage<QuizQuestion> findPage(QuestionFilter filter, ObjectId after, int limit) {
+        int pageSize = QuestionStore.clampPageSize(limit);
+        List<QuizQuestion> items = new ArrayList<>(pageSize);
+        ObjectId last = scan(filter, after, pageSize, question -> items.add(question.copy()));
+        return new QuestionPage<>(items, last == null ? null : last.toHexString());
+    }
+
+    @Override
+    public QuestionPage<QuestionSummary> findSummaries(QuestionFilter filter, ObjectId after, int limit) {
+        int pageSize = QuestionStore.clampPageSize(limit);
+        List<QuestionSummary> items = new ArrayList<>(pageSize);
+        ObjectId last = scan(filter, after, pageSize, question -> items.add(QuestionSummary.of(question)));
+        return new QuestionPage<>(items, last == null ? null : last.toHexString());
+    }
+
+    @Override
+    public QuestionPage<Map<String, Object>> findProjected(QuestionFilter filter, Collection<String> fields, ObjectId after, int limit) {
+        int pageSize = QuestionStore.clampPageSize(limit);
+        List<Map<String, Object>> items = new ArrayList<>(pageSize);
+        ObjectId last = scan(filter, after, pageSize, question -> items.add(question.project(fields)));
+        return new QuestionPage<>(items, last == null ? null : last.toHexString());
+    }
+
+    @Override
+    public List<Map<String, Object>> listProjected(Collection<String> fields) {
+        List<Map<String, Object>> items = new ArrayList<>(questions.size());
+        for (QuizQuestion question : questions.values()) {
+            items.add(question.project(fields));
+        }
+        return items;
+    }
+
+    @Override
+    public Map<String, Object> findProjectedById(ObjectId id, Collection<String> fields) {
+        QuizQuestion question = questions.get(id);
+        return question == null ? null : question.project(fields);
+    }
+
+    @Override
+    public QuizQuestion sampleOne(QuestionFilter filter) {
+        List<ObjectId> ids = sampleIds(filter, 1);
+        return ids.isEmpty() ? null : findById(ids.get(0));
+    }
+
+    @Override
+    public List<ObjectId> sampleIds(QuestionFilter filter, int size) {
+        List<ObjectId> matching = new ArrayList<>();
+        for (ObjectId id : candidates(filter)) {
+            QuizQuestion question = questions.get(id);
+            if (question != null && filter.matches(question)) matching.add(id);
+        }
+
+        // Teilweises Fisher-Yates: nur die ersten size Positionen mischen
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int count = Math.min(size, matching.size());
+        for (int i = 0; i < count; i++) {
+            Collections.swap(matching, i, i + random.nextInt(matching.size() - i));
+        }
+        return List.copyOf(matching.subList(0, count));
+    }
+
+    @Override
+    public Map<QuestionStatistics.Facet, Long> countFacets() {
+        Map<QuestionStatistics.Facet, Long> counts = new HashMap<>();
+        for (QuizQuestion question : questions.values()) {
+            counts.merge(QuestionStatistics.Facet.of(question), 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    @Override
+    public long revision() {
+        return revision.get();
+    }
+
+    // Nur eine Instanz hat diesen Speicher
+    @Override
+    public boolean changedElsewhere(long since, long until) {
+        return false;
+    }
+
+    @Override
+    public void forEachMatching(QuestionFilter filter, Consumer<QuizQuestion> action) {
+        for (ObjectId id : candidates(filter)) {
+            QuizQuestion question = questions.get(id);
+            if (question != null && filter.matches(question)) action.accept(question.copy());
+        }
+    }
+
+    @Override
+    public void persist(QuizQuestion question) {
+        synchronized (writeLock) {
+            if (question.id == null) {
+                question.id = new ObjectId();
+            } else if (questions.containsKey(question.id)) {
+                throw new IllegalStateException("Doppelte ID " + question.id);
+            }
+            store(question);
+        }
+    }
+
+    @Override
+    public QuizQuestion updateFields(ObjectId id, long expectedVersion, Map<String, Object> fields) {
+        synchronized (writeLock) {
+            QuizQuestion current = questions.get(id);
+            if (current == null || current.currentVersion() != expectedVersion) {
+                return null;
+            }
+            QuizQuestion updated = current.copy();
+            fields.forEach(updated::applyField);
+            updated.version = current.currentVersion() + 1;
+            store(updated);
+            return current.copy();
+        }
+    }
+
+    @Override
+    public QuizQuestion deleteById(ObjectId id, long expectedVersion) {
+        synchronized (writeLock) {
+            QuizQuestion current = questions.get(id);
+            if (current == null || current.currentVersion() != expectedVersion) {
+                return null;
+            }
+            questions.remove(id);
+            unindex(current);
+            revision.incrementAndGet();
+            return current.copy();
+        }
+    }
+
+    @Override
+    public Map<Integer, String> insertMany(List<QuizQuestion> batch) {
+        Map<Integer, String> errors = new HashMap<>();
+        synchronized (writeLock) {
+            for (int i = 0; i < batch.size(); i++) {
+                QuizQuestion question = batch.get(i);
+                if (question.id == null) {
+                    question.id = new ObjectId();
+                } else if (questions.containsKey(question.id)) {
+                    errors.put(i, "Doppelte ID " + question.id);
+                    continue;
+                }
+                store(question);
+            }
+        }
+        return errors;
+    }
+
+    @Override
+    public Map<Integer, String> upsertMany(List<QuizQuestion> batch) {
+        synchronized (writeLock) {
+            for (QuizQuestion question : batch) {
+                // Wie $inc in MongoDB: die Version läuft weiter, neue Fragen beginnen bei 1
+                QuizQuestion current = questions.get(question.id);
+                QuizQuestion updated = question.copy();
+                updated.version = current == null ? 1 : current.currentVersion() + 1;
+                store(updated);
+            }
+        }
+        return Map.of();
+    }
+
+    // Nur unter writeLock aufrufen
+    private void store(QuizQuestion question) {
+        QuizQuestion stored = question.copy();
+        QuizQuestion previous = questions.put(stored.id, stored);
+        if (previous != null) unindex(previous);
+        revision.incrementAndGet();
+        index(byCategory, stored.category, stored.id);
+        index(byDifficulty, stored.difficulty, stored.id);
+        index(byType, stored.questionType, stored.id);
+    }
+
+    private void unindex(QuizQuestion question) {
+        remove(byCategory, question.category, question.id);
+        remove(byDifficulty, question.difficulty, question.id);
+        remove(byType, question.questionType, question.id);
+    }
+
+    private static void index(Map<String, NavigableSet<ObjectId>> index, String value, ObjectId id) {
+        if (value == null) return;
+        index.computeIfAbsent(value, v -> new ConcurrentSkipListSet<>()).add(id);
+    }
+
+    private static void remove(Map<String, NavigableSet<ObjectId>> index, String value, ObjectId id) {
+        if (value == null) return;
+        NavigableSet<ObjectId> ids = index.get(value);
+        if (ids != null) ids.remove(id);
+    }
+
+    /**
+     * Kleinster Index unter den gesetzten Kriterien; ohne Kriterien alle IDs
+     */
+    private NavigableSet<ObjectId> candidates(QuestionFilter filter) {
+        NavigableSet<ObjectId> best = questions.keySet();
+        if (filter.category() != null) best = smaller(best, byCategory.get(filter.category()));
+        if (filter.difficulty() != null) best = smaller(best, byDifficulty.get(filter.difficulty()));
+        if (filter.type() != null) best = smaller(best, byType.get(filter.type()));
+        return best;
+    }
+
+    private static NavigableSet<ObjectId> smaller(NavigableSet<ObjectId> current, NavigableSet<ObjectId> candidate) {
+        if (candidate == null) return Collections.emptyNavigableSet();
+        return candidate.size() < current.size() ? candidate : current;
+    }
+
+    /**
+     * Gibt bis zu pageSize passende Fragen nach after an action; Ergebnis ist der Cursor für die nächste Seite
+     */
+    private ObjectId scan(QuestionFilter filter, ObjectId after, int pageSize, Consumer<QuizQuestion> action) {
+        NavigableSet<ObjectId> ids = candidates(filter);
+        if (after != null) ids = ids.tailSet(after, false);
+
+        int found = 0;
+        ObjectId last = null;
+        for (ObjectId id : ids) {
+            QuizQuestion question = questions.get(id);
+            if (question == null || !filter.matches(question)) continue;
+            if (found == pageSize) return last;
+            action.accept(question);
+            last = id;
+            found++;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,34 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.types.ObjectId;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Lernstand im Heap, Gegenstück zu {@link InMemoryQuestionStore}
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "app.storage.type", stringValue = "memory")
+public class InMemoryReviewStore implements ReviewStore {
+
+    private final Map<String, Map<ObjectId, Review>> users = new ConcurrentHashMap<>();
+
+    @Override
+    public List<Review> load(String userId) {
+        Map<ObjectId, Review> reviews = users.get(userId);
+        return reviews == null ? List.of() : new ArrayList<>(reviews.values());
+    }
+
+    @Override
+    public void save(List<Review> reviews) {
+        for (Review review : reviews) {
+            users.computeIfAbsent(review.userId(), id -> new ConcurrentHashMap<>()).put(review.questionId(), review);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.acme;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.acme.QuizMetrics.AuthOutcome;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Nutzung je API-Schlüssel: Anfragen, Ablehnungen (403), gedrosselte Anfragen (429) und zuletzt gesehen.
+ * Der Anfragepfad zählt nur in gestreifte {@link LongAdder} und macht nie I/O; ein periodischer Lauf schreibt
+ * die seither angefallenen Zähler als ungeordneten Bulk-Write in die accesskeys-Collection.
+ * Höchstens max-keys Schlüssel werden gleichzeitig verfolgt, ein Lauf endet nach flush-budget,
+ * nicht geschriebene Zähler bleiben für den nächsten Lauf stehen.
+ * Fehlversuche mit unbekanntem Schlüssel (401) lassen sich keinem Schlüssel zuordnen und zählen nur in quiz.auth.outcomes.
+ */
+@ApplicationScoped
+public class KeyUsageTracker {
+
+    private static final Logger LOG = Logger.getLogger(KeyUsageTracker.class);
+
+    // Zuletzt gesehen nur sekundengenau schreiben, damit nicht jede Anfrage dieselbe Cache-Line ändert
+    private static final long LAST_SEEN_RESOLUTION_MS = 1000;
+
+    @Inject
+    AccessKeyStore accessKeys;
+
+    @ConfigProperty(name = "app.key-usage.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.key-usage.max-keys", defaultValue = "100000")
+    int maxKeys;
+
+    @ConfigProperty(name = "app.key-usage.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "app.key-usage.flush-budget", defaultValue = "5s")
+    Duration flushBudget;
+
+    private final Map<ObjectId, Usage> pending = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Zählt eine Anfrage mit aufgelöstem Schlüssel; nur Speicherzugriffe
+     */
+    public void record(ApiKeyCache.ResolvedKey key, AuthOutcome outcome) {
+        if (!enabled || key.id() == null) return;
+
+        Usage usage = pending.get(key.id());
+        if (usage == null) {
+            if (pending.size() >= maxKeys) {
+                dropped.increment();
+                return;
+            }
+            usage = pending.computeIfAbsent(key.id(), id -> new Usage());
+        }
+        usage.requests.increment();
+        if (outcome == AuthOutcome.FORBIDDEN) {
+            usage.forbidden.increment();
+        } else if (outcome == AuthOutcome.RATE_LIMITED) {
+            usage.rateLimited.increment();
+        }
+        long now = System.currentTimeMillis();
+        if (now - usage.lastSeen >= LAST_SEEN_RESOLUTION_MS) {
+            usage.lastSeen = now;
+        }
+    }
+
+    /**
+     * Noch nicht geschriebene Nutzung eines Schlüssels, null ohne Einträge
+     */
+    public KeyUsage pending(ObjectId id) {
+        Usage usage = pending.get(id);
+        if (usage == null) return null;
+        return new KeyUsage(id, usage.requests.sum(), usage.forbidden.sum(), usage.rateLimited.sum(),
+            usage.lastSeen == 0 ? null : Instant.ofEpochMilli(usage.lastSeen));
+    }
+
+    @Scheduled(every = "${app.key-usage.flush-interval:30s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledFlush() {
+        flush();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        flush();
+    }
+
+    /**
+     * Schreibt alle seit dem letzten Lauf angefallenen Zähler in Blöcken zu batch-size Schlüsseln
+     */
+    public void flush() {
+        if (!enabled || !flushLock.tryLock()) return;
+        try {
+            long deadline = System.nanoTime() + flushBudget.toNanos();
+            List<KeyUsage> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            Iterator<Map.Entry<ObjectId, Usage>> entries = pending.entrySet().iterator();
+            while (entries.hasNext() && deadline - System.nanoTime() > 0) {
+                Map.Entry<ObjectId, Usage> entry = entries.next();
+                Usage usage = entry.getValue();
+                long requests = usage.requests.sumThenReset();
+                if (requests == 0) {
+                    // Seit dem letzten Lauf unbenutzt: Eintrag freigeben. Eine Anfrage genau in diesem Moment kann verloren gehen.
+                    entries.remove();
+                    continue;
+                }
+                batch.add(new KeyUsage(entry.getKey(), requests, usage.forbidden.sumThenReset(), usage.rateLimited.sumThenReset(),
+                    Instant.ofEpochMilli(usage.lastSeen)));
+                if (batch.size() >= batchSize) {
+                    write(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+
+            long lost = dropped.sumThenReset();
+            if (lost > 0) {
+                LOG.warnf("%d Anfragen nicht gezählt, mehr als %d Schlüssel gleichzeitig aktiv", lost, maxKeys);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(List<KeyUsage> batch) {
+        List<KeyUsage> failed;
+        try {
+            failed = accessKeys.recordUsage(batch);
+            if (failed.isEmpty()) return;
+            LOG.warnf("Nutzung von %d der %d Schlüssel nicht geschrieben, neuer Versuch im nächsten Lauf", failed.size(), batch.size());
+        } catch (RuntimeException e) {
+            LOG.warnf("Nutzung von %d Schlüsseln nicht geschrieben, neuer Versuch im nächsten Lauf: %s", batch.size(), e.getMessage());
+            failed = batch;
+        }
+        // Nur die nicht geschriebenen Zähler zurückbuchen, die übrigen stehen schon in der Datenbank.
+        // Die Obergrenze gilt hier nicht, es sind nur bereits verfolgte Schlüssel
+        for (KeyUsage usage : failed) {
+            Usage restored = pending.computeIfAbsent(usage.id(), id -> new Usage());
+            restored.requests.add(usage.requests());
+            restored.forbidden.add(usage.forbidden());
+            restored.rateLimited.add(usage.rateLimited());
+            if (restored.lastSeen < usage.lastSeen().toEpochMilli()) {
+                restored.lastSeen = usage.lastSeen().toEpochMilli();
+            }
+        }
+    }
+
+    private static final class Usage {
+        final LongAdder requests = new LongAdder();
+        final LongAdder forbidden = new LongAdder();
+        final LongAdder rateLimited = new LongAdder();
+        volatile long lastSeen;
+    }
+
+    /**
+     * Zuwachs je Schlüssel seit dem letzten Lauf; lastSeen ist der späteste Zeitpunkt
+     */
+    public record KeyUsage(ObjectId id, long requests, long forbidden, long rateLimited, Instant lastSeen) { }
+}
@@ -0,0 +1,62 @@
+package org.acme;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.types.ObjectId;
+
+import io.quarkus.arc.DefaultBean;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Standard-Speicher: alle Zugriffe gehen über {@link AccessKeyRepository} an MongoDB
+ */
+@DefaultBean
+@ApplicationScoped
+public class MongoAccessKeyStore implements AccessKeyStore {
+
+    private static final String STORE = "accesskeys";
+
+    @Inject
+    AccessKeyRepository repository;
+
+    @Inject
+    QuizMetrics metrics;
+
+    @Override
+    public List<AccessKey> listAll() {
+        List<AccessKey> keys = metrics.time(STORE, "listAll", () -> repository.listAll());
+        metrics.materialized(STORE, "listAll", keys.size());
+        return keys;
+    }
+
+    @Override
+    public AccessKey findById(ObjectId id) {
+        AccessKey key = metrics.time(STORE, "findById", () -> repository.findById(id));
+        metrics.materialized(STORE, "findById", key == null ? 0 : 1);
+        return key;
+    }
+
+    @Override
+    public Optional<AccessKey> findByKey(String key) {
+        Optional<AccessKey> found = metrics.time(STORE, "findByKey", () -> repository.findByKey(key));
+        metrics.materialized(STORE, "findByKey", found.isPresent() ? 1 : 0);
+        return found;
+    }
+
+    @Override
+    public void persist(AccessKey key) {
+        metrics.time(STORE, "persist", () -> repository.persist(key));
+    }
+
+    @Override
+    public boolean deleteById(ObjectId id) {
+        return metrics.time(STORE, "deleteById", () -> repository.deleteById(id));
+    }
+
+    @Override
+    public List<KeyUsageTracker.KeyUsage> recordUsage(List<KeyUsageTracker.KeyUsage> usage) {
+        return metrics.time(STORE, "recordUsage", () -> repository.recordUsage(usage));
+    }
+}
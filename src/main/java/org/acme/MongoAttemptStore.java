@@ -0,0 +1,281 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+
+import io.quarkus.arc.DefaultBean;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Standard-Speicher: ein Dokument je Frage und Zeitfenster in der Collection attempts, fortgeschrieben mit einem
+ * ungeordneten bulkWrite aus $inc und Upsert. Es enthält nur Zähler und bleibt damit gleich groß, egal wie viele Versuche
+ * in das Fenster fallen. Im selben bulkWrite werden die Summen je Frage und je Kategorie hochgezählt; sie liegen in
+ * derselben Collection mit einer String-ID ("question:…", "category:…"), die Buckets haben ein Dokument als ID.
+ * Die einzelnen Versuche landen je als eigenes Dokument in attempt_events (insertMany).
+ */
+@DefaultBean
+@ApplicationScoped
+public class MongoAttemptStore implements AttemptStore {
+
+    private static final Logger LOG = Logger.getLogger(MongoAttemptStore.class);
+
+    private static final String STORE = "attempts";
+    private static final String EVENTS = "attempt_events";
+    private static final String QUESTION_TOTAL = "question:";
+    private static final String CATEGORY_TOTAL = "category:";
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int CURSOR_BATCH_SIZE = 500;
+
+    @Inject
+    MongoClient mongoClient;
+
+    @Inject
+    QuizMetrics metrics;
+
+    @ConfigProperty(name = "quarkus.mongodb.database")
+    String database;
+
+    private MongoCollection<Document> collection;
+    private MongoCollection<Document> events;
+
+    // Einzelne gescheiterte Schreibzugriffe eines Laufs. Ein Bucket hängt an mehreren davon (Bucket, Summe der Frage,
+    // Summe der Kategorie); ihn als Ganzes zu wiederholen, würde die übrigen doppelt zählen. Deshalb hält der Speicher
+    // genau die gescheiterten zurück und schreibt sie vor allem Neuen. Versuche haben eine feste _id, ein doppeltes
+    // Einfügen nach einer verlorenen Antwort scheitert also nur am Schlüssel. Nur unter writeLock
+    private final List<WriteModel<Document>> pendingCounters = new ArrayList<>();
+    private final List<Document> pendingEvents = new ArrayList<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @PostConstruct
+    void init() {
+        collection = mongoClient.getDatabase(database).getCollection(STORE);
+        events = mongoClient.getDatabase(database).getCollection(EVENTS);
+    }
+
+    /**
+     * Zuerst der Rückstand gescheiterter Schreibzugriffe; gelingt der nicht, bleiben alle neuen Buckets ungeschrieben
+     * und werden zurückgegeben. Sonst gehen Buckets und Summen in einem bulkWrite raus, danach die Versuche; was dabei
+     * einzeln scheitert (getWriteErrors()), wird Rückstand. Ein Write-Concern-Fehler allein heißt nicht, dass nichts
+     * geschrieben wurde, und wird deshalb nicht wiederholt.
+     */
+    @Override
+    public List<AttemptBucket> appendBuckets(List<AttemptBucket> buckets) {
+        writeLock.lock();
+        try {
+            if (!writePending()) return buckets;
+
+            pendingCounters.addAll(writeCounters("appendBuckets", counterWrites(buckets)));
+            for (AttemptBucket bucket : buckets) {
+                pendingEvents.addAll(eventDocuments(bucket));
+            }
+            writeEvents();
+            return List.of();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void forEachTotal(Consumer<AttemptTotal> action) {
+        long[] documents = new long[1];
+        metrics.time(STORE, "forEachTotal", () -> {
+            // Vergleiche in MongoDB gelten nur innerhalb eines Typs: das sind genau die String-IDs, über den _id-Index
+            try (MongoCursor<Document> cursor = collection.find(Filters.gte("_id", ""))
+                    .batchSize(CURSOR_BATCH_SIZE)
+                    .iterator()) {
+                while (cursor.hasNext()) {
+                    documents[0]++;
+                    action.accept(fromDocument(cursor.next()));
+                }
+            }
+        });
+        metrics.materialized(STORE, "forEachTotal", documents[0]);
+    }
+
+    // true, wenn kein Rückstand mehr übrig ist
+    private boolean writePending() {
+        if (!pendingCounters.isEmpty()) {
+            List<WriteModel<Document>> retry = List.copyOf(pendingCounters);
+            try {
+                List<WriteModel<Document>> failed = writeCounters("retryCounters", retry);
+                pendingCounters.clear();
+                pendingCounters.addAll(failed);
+            } catch (RuntimeException e) {
+                LOG.warnf("%d Zähler für Antwortversuche weiter nicht geschrieben: %s", retry.size(), e.getMessage());
+                return false;
+            }
+        }
+        writeEvents();
+        return pendingCounters.isEmpty() && pendingEvents.isEmpty();
+    }
+
+    // Ergebnis sind die gescheiterten Schreibzugriffe; eine andere Exception heißt, dass keiner geschrieben wurde
+    private List<WriteModel<Document>> writeCounters(String operation, List<WriteModel<Document>> writes) {
+        try {
+            metrics.time(STORE, operation, () -> collection.bulkWrite(writes, new BulkWriteOptions().ordered(false)));
+            return List.of();
+        } catch (MongoBulkWriteException e) {
+            if (e.getWriteConcernError() != null) {
+                LOG.warnf("Write Concern für Antwortversuche nicht erfüllt: %s", e.getWriteConcernError().getMessage());
+            }
+            List<WriteModel<Document>> failed = new ArrayList<>(e.getWriteErrors().size());
+            for (BulkWriteError error : e.getWriteErrors()) {
+                failed.add(writes.get(error.getIndex()));
+            }
+            if (!failed.isEmpty()) {
+                LOG.warnf("%d von %d Zählern für Antwortversuche nicht geschrieben, neuer Versuch im nächsten Lauf",
+                    failed.size(), writes.size());
+            }
+            return failed;
+        }
+    }
+
+    // Scheitert hier etwas, bleibt es in pendingEvents; die Zähler sind davon nicht betroffen
+    private void writeEvents() {
+        if (pendingEvents.isEmpty()) return;
+        List<Document> written = List.copyOf(pendingEvents);
+        try {
+            metrics.time(STORE, "insertEvents", () -> events.insertMany(written, new InsertManyOptions().ordered(false)));
+            pendingEvents.clear();
+        } catch (MongoBulkWriteException e) {
+            List<Document> failed = new ArrayList<>(e.getWriteErrors().size());
+            for (BulkWriteError error : e.getWriteErrors()) {
+                // Schon vorhanden: ein früherer Versuch ist doch angekommen
+                if (error.getCode() != DUPLICATE_KEY) failed.add(written.get(error.getIndex()));
+            }
+            pendingEvents.clear();
+            pendingEvents.addAll(failed);
+            if (!failed.isEmpty()) {
+                LOG.warnf("%d Antwortversuche nicht eingefügt, neuer Versuch im nächsten Lauf", failed.size());
+            }
+        } catch (RuntimeException e) {
+            LOG.warnf("%d Antwortversuche nicht eingefügt, neuer Versuch im nächsten Lauf: %s", written.size(), e.getMessage());
+        }
+    }
+
+    // Je Bucket ein Upsert, dazu je betroffener Frage und Kategorie einer für die Summe
+    private static List<WriteModel<Document>> counterWrites(List<AttemptBucket> buckets) {
+        UpdateOptions upsert = new UpdateOptions().upsert(true);
+        Map<ObjectId, Sum> byQuestion = new LinkedHashMap<>();
+        Map<String, Sum> byCategory = new LinkedHashMap<>();
+        List<WriteModel<Document>> writes = new ArrayList<>(buckets.size() * 2);
+        for (AttemptBucket bucket : buckets) {
+            writes.add(new UpdateOneModel<>(new Document("_id", bucketId(bucket)),
+                increments(bucket.category(), bucket.attempts(), bucket.correct(), bucket.totalTimeMs(), bucket.timeHistogram()),
+                upsert));
+            byQuestion.computeIfAbsent(bucket.questionId(), id -> new Sum(bucket.category())).add(bucket);
+            if (bucket.category() != null) {
+                byCategory.computeIfAbsent(bucket.category(), Sum::new).add(bucket);
+            }
+        }
+        byQuestion.forEach((questionId, sum) -> writes.add(new UpdateOneModel<>(
+            new Document("_id", QUESTION_TOTAL + questionId.toHexString()),
+            Updates.combine(Updates.setOnInsert("questionId", questionId), sum.increments()), upsert)));
+        byCategory.forEach((category, sum) -> writes.add(new UpdateOneModel<>(
+            new Document("_id", CATEGORY_TOTAL + category), sum.increments(), upsert)));
+        return writes;
+    }
+
+    // Reihenfolge der Felder ist Teil des Schlüssels und muss beim Upsert immer gleich sein
+    private static Document bucketId(AttemptBucket bucket) {
+        return new Document("questionId", bucket.questionId()).append("start", Date.from(bucket.start()));
+    }
+
+    private static Bson increments(String category, long attempts, long correct, long totalTimeMs, long[] histogram) {
+        List<Bson> updates = new ArrayList<>();
+        if (category != null) {
+            updates.add(Updates.setOnInsert("category", category));
+        }
+        updates.add(Updates.inc("attempts", attempts));
+        updates.add(Updates.inc("correct", correct));
+        updates.add(Updates.inc("totalTimeMs", totalTimeMs));
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] > 0) updates.add(Updates.inc("timeHistogram." + i, histogram[i]));
+        }
+        return Updates.combine(updates);
+    }
+
+    private static List<Document> eventDocuments(AttemptBucket bucket) {
+        List<Document> documents = new ArrayList<>(bucket.events().size());
+        for (AnswerAttempt attempt : bucket.events()) {
+            documents.add(new Document("_id", new ObjectId())
+                .append("questionId", attempt.questionId())
+                .append("userId", attempt.userId())
+                .append("correct", attempt.correct())
+                .append("timeTakenMs", attempt.timeTakenMs())
+                .append("at", Date.from(attempt.at())));
+        }
+        return documents;
+    }
+
+    private static AttemptTotal fromDocument(Document document) {
+        long[] histogram = new long[AttemptStatistics.TIME_BUCKETS];
+        Document stored = document.get("timeHistogram", Document.class);
+        if (stored != null) {
+            stored.forEach((index, count) -> {
+                int i = Integer.parseInt(index);
+                if (i >= 0 && i < histogram.length) histogram[i] = ((Number) count).longValue();
+            });
+        }
+        ObjectId questionId = document.getString("_id").startsWith(QUESTION_TOTAL) ? document.getObjectId("questionId") : null;
+        return new AttemptTotal(questionId, document.getString("category"),
+            number(document, "attempts"), number(document, "correct"), number(document, "totalTimeMs"), histogram);
+    }
+
+    private static long number(Document document, String field) {
+        Number value = document.get(field, Number.class);
+        return value == null ? 0 : value.longValue();
+    }
+
+    // Summe der Buckets eines Laufs für eine Frage oder Kategorie
+    private static final class Sum {
+        final String category;
+        final long[] histogram = new long[AttemptStatistics.TIME_BUCKETS];
+        long attempts;
+        long correct;
+        long totalTimeMs;
+
+        Sum(String category) {
+            this.category = category;
+        }
+
+        void add(AttemptBucket bucket) {
+            attempts += bucket.attempts();
+            correct += bucket.correct();
+            totalTimeMs += bucket.totalTimeMs();
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += bucket.timeHistogram()[i];
+            }
+        }
+
+        Bson increments() {
+            return MongoAttemptStore.increments(category, attempts, correct, totalTimeMs, histogram);
+        }
+    }
+}
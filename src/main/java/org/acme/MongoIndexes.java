@@ -0,0 +1,169 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexModel;
+
+import io.quarkus.arc.properties.UnlessBuildProperty;
+import io.quarkus.runtime.Quarkus;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Legt nach dem Start im Hintergrund die Indizes an, die die Abfragen der Repositories brauchen, und prüft danach per
+ * explain, dass keine gefilterte Abfrage mehr als COLLSCAN oder mit Sortierung im Speicher (SORT) läuft. createIndex ist
+ * idempotent, vorhandene Indizes bleiben. Ist MongoDB nicht erreichbar, wird es alle app.indexes.retry-interval erneut
+ * versucht, bis es einmal gelungen ist; der Start wartet darauf nicht.
+ * Die Collections attempts, attempt_events und reviews brauchen keinen eigenen Index, sie werden nur über _id
+ * geschrieben und gelesen (die Summen in attempts beim Start über einen Bereich der _id).
+ */
+@UnlessBuildProperty(name = "app.storage.type", stringValue = "memory", enableIfMissing = true)
+@ApplicationScoped
+public class MongoIndexes {
+
+    private static final Logger LOG = Logger.getLogger(MongoIndexes.class);
+
+    @Inject
+    QuizQuestionRepository questions;
+
+    @Inject
+    AccessKeyRepository accessKeys;
+
+    @Inject
+    WarmStart warmStart;
+
+    @ConfigProperty(name = "app.indexes.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.indexes.verify", defaultValue = "fail")
+    Verify verify;
+
+    private volatile boolean pending = true;
+
+    // Der erste Lauf folgt gleich nach dem Start. Nach einem Warmstart bedient die Anwendung schon Anfragen
+    // aus dem Abbild, ein fehlender Index wird dann nur gemeldet
+    @Scheduled(every = "${app.indexes.retry-interval:1m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void retry() {
+        if (enabled && pending) {
+            ensure(verify == Verify.FAIL && !warmStart.isRestored());
+        }
+    }
+
+    /**
+     * Legt alle Indizes an und prüft die Abfragepläne; bei nicht erreichbarer Datenbank bleibt es für den nächsten Lauf offen.
+     * Mit failOnCollectionScan beendet eine Abfrage ohne Index die Anwendung.
+     */
+    void ensure(boolean failOnCollectionScan) {
+        List<String> scans;
+        try {
+            create(questions.mongoCollection(), QuizQuestionRepository.INDEXES);
+            create(accessKeys.mongoCollection(), AccessKeyRepository.INDEXES);
+            scans = verify == Verify.OFF ? List.of() : unindexedQueries();
+        } catch (MongoException e) {
+            LOG.warnf("Indizes konnten nicht angelegt werden, neuer Versuch im nächsten Lauf: %s", e.getMessage());
+            return;
+        }
+        pending = false;
+
+        if (scans.isEmpty()) {
+            LOG.info("Indizes angelegt, alle gefilterten Abfragen nutzen einen Index");
+            return;
+        }
+        String message = "Abfragen ohne passenden Index: " + String.join(", ", scans);
+        if (failOnCollectionScan) {
+            LOG.error(message + "; Anwendung wird beendet, mit app.indexes.verify=warn läuft sie weiter");
+            Quarkus.asyncExit(1);
+            return;
+        }
+        LOG.error(message);
+    }
+
+    // Ein Index, der sich nicht anlegen lässt (z. B. doppelte Schlüssel), verhindert die übrigen nicht
+    private static void create(MongoCollection<?> collection, List<IndexModel> indexes) {
+        for (IndexModel index : indexes) {
+            try {
+                collection.createIndex(index.getKeys(), index.getOptions());
+            } catch (MongoCommandException e) {
+                LOG.errorf("Index %s auf %s konnte nicht angelegt werden: %s",
+                    index.getOptions().getName(), collection.getNamespace().getCollectionName(), e.getErrorMessage());
+            }
+        }
+    }
+
+    /**
+     * Alle Abfrageformen der Repositories, deren Gewinnerplan noch die ganze Collection liest (COLLSCAN)
+     * oder die Treffer im Speicher sortiert (SORT); Letzteres betrifft die Keyset-Seiten, die nach _id sortieren.
+     * Bewusst vollständige Lesevorgänge (listAll, countFacets, Export ohne Filter) sind nicht dabei.
+     */
+    private List<String> unindexedQueries() {
+        List<String> scans = new ArrayList<>();
+        if (usesStage(accessKeys.explainFindByKey(), "COLLSCAN")) {
+            scans.add("accesskeys.findByKey (COLLSCAN)");
+        }
+        for (QuestionFilter filter : filterShapes()) {
+            for (Document plan : questions.explainFilter(filter)) {
+                String stage = usesStage(plan, "COLLSCAN") ? "COLLSCAN" : usesStage(plan, "SORT") ? "SORT" : null;
+                if (stage != null) {
+                    scans.add("quizquestions " + filter.toDocument().keySet() + " (" + stage + ")");
+                    break;
+                }
+            }
+        }
+        return scans;
+    }
+
+    // Alle Kombinationen aus Fragetyp, Kategorie und Schwierigkeit; die Werte spielen für den Plan keine Rolle
+    private static List<QuestionFilter> filterShapes() {
+        List<QuestionFilter> shapes = new ArrayList<>(8);
+        for (int mask = 0; mask < 8; mask++) {
+            shapes.add(new QuestionFilter((mask & 1) != 0 ? "" : null, (mask & 2) != 0 ? "" : null, (mask & 4) != 0 ? "" : null));
+        }
+        return shapes;
+    }
+
+    // Je nach Server-Version steckt der Plan in queryPlanner.winningPlan oder darunter in queryPlan
+    private static boolean usesStage(Object explain, String stage) {
+        if (explain instanceof Map<?, ?> document) {
+            Object winningPlan = document.get("winningPlan");
+            if (winningPlan != null) return containsStage(winningPlan, stage);
+            for (Object value : document.values()) {
+                if (usesStage(value, stage)) return true;
+            }
+        } else if (explain instanceof List<?> list) {
+            for (Object value : list) {
+                if (usesStage(value, stage)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsStage(Object plan, String stage) {
+        if (plan instanceof Map<?, ?> document) {
+            if (stage.equals(document.get("stage"))) return true;
+            for (Object value : document.values()) {
+                if (containsStage(value, stage)) return true;
+            }
+        } else if (plan instanceof List<?> list) {
+            for (Object value : list) {
+                if (containsStage(value, stage)) return true;
+            }
+        }
+        return false;
+    }
+
+    public enum Verify {
+        FAIL,
+        WARN,
+        OFF
+    }
+}
@@ -0,0 +1,172 @@
+package org.acme;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+import org.bson.types.ObjectId;
+import org.jboss.logging.Logger;
+
+import io.quarkus.arc.DefaultBean;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Standard-Speicher: alle Zugriffe gehen über {@link QuizQuestionRepository} an MongoDB.
+ * Jeder Zugriff wird gemessen und zählt die gelesenen Dokumente, damit sichtbar wird, welcher Endpunkt die Collection scannt.
+ */
+@DefaultBean
+@ApplicationScoped
+public class MongoQuestionStore implements QuestionStore {
+
+    private static final Logger LOG = Logger.getLogger(MongoQuestionStore.class);
+
+    private static final String STORE = "questions";
+
+    @Inject
+    QuizQuestionRepository repository;
+
+    @Inject
+    QuizMetrics metrics;
+
+    // Revisionen aus eigenen Schreibzugriffen, noch nicht vom Abgleich verbraucht
+    private final ConcurrentSkipListSet<Long> own = new ConcurrentSkipListSet<>();
+
+    @Override
+    public List<QuizQuestion> listAll() {
+        return counted("listAll", metrics.time(STORE, "listAll", () -> repository.listAll()));
+    }
+
+    @Override
+    public QuizQuestion findById(ObjectId id) {
+        QuizQuestion question = metrics.time(STORE, "findById", () -> repository.findById(id));
+        metrics.materialized(STORE, "findById", question == null ? 0 : 1);
+        return question;
+    }
+
+    @Override
+    public List<QuizQuestion> findByIds(Collection<ObjectId> ids) {
+        return counted("findByIds", metrics.time(STORE, "findByIds", () -> repository.findByIds(ids)));
+    }
+
+    @Override
+    public QuestionPage<QuizQuestion> findPage(QuestionFilter filter, ObjectId after, int limit) {
+        return counted("findPage", metrics.time(STORE, "findPage", () -> repository.findPage(filter, after, limit)));
+    }
+
+    @Override
+    public QuestionPage<QuestionSummary> findSummaries(QuestionFilter filter, ObjectId after, int limit) {
+        return counted("findSummaries", metrics.time(STORE, "findSummaries", () -> repository.findSummaries(filter, after, limit)));
+    }
+
+    @Override
+    public QuestionPage<Map<String, Object>> findProjected(QuestionFilter filter, Collection<String> fields, ObjectId after, int limit) {
+        return counted("findProjected", metrics.time(STORE, "findProjected", () -> repository.findProjected(filter, fields, after, limit)));
+    }
+
+    @Override
+    public List<Map<String, Object>> listProjected(Collection<String> fields) {
+        return counted("listProjected", metrics.time(STORE, "listProjected", () -> repository.listProjected(fields)));
+    }
+
+    @Override
+    public Map<String, Object> findProjectedById(ObjectId id, Collection<String> fields) {
+        Map<String, Object> item = metrics.time(STORE, "findProjectedById", () -> repository.findProjectedById(id, fields));
+        metrics.materialized(STORE, "findProjectedById", item == null ? 0 : 1);
+        return item;
+    }
+
+    @Override
+    public QuizQuestion sampleOne(QuestionFilter filter) {
+        QuizQuestion question = metrics.time(STORE, "sampleOne", () -> repository.sampleOne(filter));
+        metrics.materialized(STORE, "sampleOne", question == null ? 0 : 1);
+        return question;
+    }
+
+    @Override
+    public List<ObjectId> sampleIds(QuestionFilter filter, int size) {
+        return metrics.time(STORE, "sampleIds", () -> repository.sampleIds(filter, size));
+    }
+
+    @Override
+    public Map<QuestionStatistics.Facet, Long> countFacets() {
+        return metrics.time(STORE, "countFacets", () -> repository.countFacets());
+    }
+
+    @Override
+    public long revision() {
+        return metrics.time(STORE, "revision", () -> repository.revision());
+    }
+
+    @Override
+    public boolean changedElsewhere(long since, long until) {
+        if (until < since) return true;
+        own.headSet(since, true).clear();
+        return until - since != own.subSet(since, false, until, true).size();
+    }
+
+    @Override
+    public void forEachMatching(QuestionFilter filter, Consumer<QuizQuestion> action) {
+        long[] documents = new long[1];
+        metrics.time(STORE, "forEachMatching", () -> repository.forEachMatching(filter, question -> {
+            documents[0]++;
+            action.accept(question);
+        }));
+        metrics.materialized(STORE, "forEachMatching", documents[0]);
+    }
+
+    @Override
+    public void persist(QuizQuestion question) {
+        metrics.time(STORE, "persist", () -> repository.persist(question));
+        bumpRevision();
+    }
+
+    @Override
+    public QuizQuestion updateFields(ObjectId id, long expectedVersion, Map<String, Object> fields) {
+        QuizQuestion before = metrics.time(STORE, "updateFields", () -> repository.updateFields(id, expectedVersion, fields));
+        if (before != null) bumpRevision();
+        return before;
+    }
+
+    @Override
+    public QuizQuestion deleteById(ObjectId id, long expectedVersion) {
+        QuizQuestion deleted = metrics.time(STORE, "deleteById", () -> repository.deleteById(id, expectedVersion));
+        if (deleted != null) bumpRevision();
+        return deleted;
+    }
+
+    @Override
+    public Map<Integer, String> insertMany(List<QuizQuestion> questions) {
+        Map<Integer, String> failures = metrics.time(STORE, "insertMany", () -> repository.insertMany(questions));
+        if (failures.size() < questions.size()) bumpRevision();
+        return failures;
+    }
+
+    @Override
+    public Map<Integer, String> upsertMany(List<QuizQuestion> questions) {
+        Map<Integer, String> failures = metrics.time(STORE, "upsertMany", () -> repository.upsertMany(questions));
+        if (failures.size() < questions.size()) bumpRevision();
+        return failures;
+    }
+
+    // Nach dem Schreiben, damit eine andere Instanz, die die neue Revision sieht, auch das Dokument liest
+    private void bumpRevision() {
+        try {
+            own.add(metrics.time(STORE, "bumpRevision", () -> repository.bumpRevision()));
+        } catch (RuntimeException e) {
+            LOG.warnf("Revision nicht erhöht, andere Instanzen sehen die Änderung erst mit der nächsten: %s", e.getMessage());
+        }
+    }
+
+    private <T> List<T> counted(String operation, List<T> items) {
+        metrics.materialized(STORE, operation, items.size());
+        return items;
+    }
+
+    private <T> QuestionPage<T> counted(String operation, QuestionPage<T> page) {
+        metrics.materialized(STORE, operation, page.items().size());
+        return page;
+    }
+}
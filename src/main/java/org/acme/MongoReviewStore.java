@@ -0,0 +1,86 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+
+import io.quarkus.arc.DefaultBean;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Standard-Speicher: ein Dokument je Nutzer in der Collection reviews, die Fragen als Unterdokumente
+ * ({@code items.<questionId>}). Laden ist damit ein Zugriff über _id, Schreiben ein $set je geänderter Frage.
+ */
+@DefaultBean
+@ApplicationScoped
+public class MongoReviewStore implements ReviewStore {
+
+    private static final String STORE = "reviews";
+
+    @Inject
+    MongoClient mongoClient;
+
+    @Inject
+    QuizMetrics metrics;
+
+    @ConfigProperty(name = "quarkus.mongodb.database")
+    String database;
+
+    private MongoCollection<Document> collection;
+
+    @PostConstruct
+    void init() {
+        collection = mongoClient.getDatabase(database).getCollection(STORE);
+    }
+
+    @Override
+    public List<Review> load(String userId) {
+        Document document = metrics.time(STORE, "load", () -> collection.find(Filters.eq("_id", userId)).first());
+        Document items = document == null ? null : document.get("items", Document.class);
+        if (items == null) return List.of();
+
+        List<Review> reviews = new ArrayList<>(items.size());
+        items.forEach((questionId, value) -> {
+            if (!ObjectId.isValid(questionId) || !(value instanceof Document item)) return;
+            Date due = item.getDate("due");
+            Number box = item.get("box", Number.class);
+            if (due == null || box == null) return;
+            reviews.add(new Review(userId, new ObjectId(questionId), box.intValue(), due.toInstant()));
+        });
+        metrics.materialized(STORE, "load", reviews.size());
+        return reviews;
+    }
+
+    @Override
+    public void save(List<Review> reviews) {
+        // Ein Update je Nutzer mit einem $set je Frage
+        Map<String, List<Bson>> byUser = new LinkedHashMap<>();
+        for (Review review : reviews) {
+            byUser.computeIfAbsent(review.userId(), id -> new ArrayList<>()).add(Updates.set(
+                "items." + review.questionId().toHexString(),
+                new Document("box", review.box()).append("due", Date.from(review.due()))));
+        }
+        List<UpdateOneModel<Document>> writes = new ArrayList<>(byUser.size());
+        UpdateOptions upsert = new UpdateOptions().upsert(true);
+        byUser.forEach((userId, updates) ->
+            writes.add(new UpdateOneModel<>(Filters.eq("_id", userId), Updates.combine(updates), upsert)));
+        metrics.time(STORE, "save", () -> collection.bulkWrite(writes, new BulkWriteOptions().ordered(false)));
+    }
+}
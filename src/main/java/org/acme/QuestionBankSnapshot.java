@@ -0,0 +1,298 @@
+package org.acme;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+import org.acme.AccessKey.KeyRole;
+import org.bson.types.ObjectId;
+
+/**
+ * Binäres Abbild von Fragenkatalog und API-Schlüsseln für den Warmstart.
+ * <pre>
+ * Kopf (36 Byte): Magic "PMSQ", Formatversion (short), reserviert (short), Zeitpunkt (long, ms),
+ *                 Anzahl Fragen (int), Anzahl Schlüssel (int), Länge Nutzdaten (long), CRC32C der Nutzdaten (int)
+ * Nutzdaten:      Fragen, danach Schlüssel; Strings als Länge + UTF-8 (-1 = null), Listen als Anzahl + Elemente (-1 = null)
+ * </pre>
+ * Schlüssel werden nur als ID und SHA-256-Hash mit Rolle, UserId und Limits abgelegt, wie im {@link ApiKeyCache}.
+ * Geschrieben wird in eine temporäre Datei, die danach atomar umbenannt wird; gelesen wird über eine Speicherabbildung.
+ */
+final class QuestionBankSnapshot {
+
+    static final int MAGIC = 0x504D5351;
+    static final short FORMAT_VERSION = 4;
+    static final int HEADER_SIZE = 36;
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final KeyRole[] ROLES = KeyRole.values();
+
+    private QuestionBankSnapshot() {
+    }
+
+    record Contents(Instant createdAt, List<QuizQuestion> questions, List<ApiKeyCache.ResolvedKey> keys) { }
+
+    static void write(Path file, List<QuizQuestion> questions, List<AccessKey> keys) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.position(HEADER_SIZE);
+                CRC32C checksum = new CRC32C();
+                CountingOutputStream counter = new CountingOutputStream(Channels.newOutputStream(channel));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(counter, checksum), 1 << 16));
+                for (QuizQuestion question : questions) {
+                    writeQuestion(out, question);
+                }
+                int keyCount = 0;
+                for (AccessKey key : keys) {
+                    if (key.id == null || key.key == null || key.role == null) continue;
+                    writeKey(out, key);
+                    keyCount++;
+                }
+                out.flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putShort(FORMAT_VERSION)
+                    .putShort((short) 0)
+                    .putLong(System.currentTimeMillis())
+                    .putInt(questions.size())
+                    .putInt(keyCount)
+                    .putLong(counter.count)
+                    .putInt((int) checksum.getValue())
+                    .flip();
+                channel.write(header, 0);
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Liest und prüft das Abbild; IOException bei fehlender Datei, fremdem Format, falscher Länge oder Prüfsumme
+     */
+    static Contents read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Abbild zu kurz");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (mapped.getInt() != MAGIC) {
+                throw new IOException("Kein Abbild des Fragenkatalogs");
+            }
+            short version = mapped.getShort();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Nicht unterstützte Formatversion " + version);
+            }
+            mapped.getShort();
+            Instant createdAt = Instant.ofEpochMilli(mapped.getLong());
+            int questionCount = mapped.getInt();
+            int keyCount = mapped.getInt();
+            long payloadLength = mapped.getLong();
+            int expectedChecksum = mapped.getInt();
+            if (payloadLength != size - HEADER_SIZE) {
+                throw new IOException("Abbild unvollständig");
+            }
+
+            ByteBuffer payload = mapped.slice();
+            CRC32C checksum = new CRC32C();
+            checksum.update(payload.duplicate());
+            if ((int) checksum.getValue() != expectedChecksum) {
+                throw new IOException("Prüfsumme stimmt nicht");
+            }
+
+            List<QuizQuestion> questions = new ArrayList<>(questionCount);
+            for (int i = 0; i < questionCount; i++) {
+                questions.add(readQuestion(payload));
+            }
+            List<ApiKeyCache.ResolvedKey> keys = new ArrayList<>(keyCount);
+            for (int i = 0; i < keyCount; i++) {
+                keys.add(readKey(payload));
+            }
+            return new Contents(createdAt, questions, keys);
+        } catch (RuntimeException e) {
+            // Fehlerhafte Längenangaben in einem Abbild mit passender Prüfsumme, z. B. aus einer defekten Version
+            throw new IOException("Abbild nicht lesbar", e);
+        }
+    }
+
+    private static void writeQuestion(DataOutputStream out, QuizQuestion question) throws IOException {
+        out.write(question.id.toByteArray());
+        writeString(out, question.question);
+        writeString(out, question.questionType);
+        writeStrings(out, question.answers);
+        writeInts(out, question.correctAnswerIndices);
+        writeString(out, question.textAnswer);
+        writeStrings(out, question.leftItems);
+        writeStrings(out, question.rightItems);
+        if (question.correctMappings == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(question.correctMappings.size());
+            for (QuizQuestion.CategoryMapping mapping : question.correctMappings) {
+                out.writeInt(mapping.categoryIndex == null ? -1 : mapping.categoryIndex);
+                writeInts(out, mapping.itemIndices);
+            }
+        }
+        writeString(out, question.category);
+        writeString(out, question.difficulty);
+        out.writeLong(question.version == null ? -1 : question.version);
+    }
+
+    private static QuizQuestion readQuestion(ByteBuffer in) {
+        byte[] id = new byte[12];
+        in.get(id);
+        QuizQuestion question = new QuizQuestion();
+        question.id = new ObjectId(id);
+        question.question = readString(in);
+        question.questionType = readString(in);
+        question.answers = readStrings(in);
+        question.correctAnswerIndices = readInts(in);
+        question.textAnswer = readString(in);
+        question.leftItems = readStrings(in);
+        question.rightItems = readStrings(in);
+        int mappings = in.getInt();
+        if (mappings >= 0) {
+            question.correctMappings = new ArrayList<>(mappings);
+            for (int i = 0; i < mappings; i++) {
+                int categoryIndex = in.getInt();
+                question.correctMappings.add(new QuizQuestion.CategoryMapping(categoryIndex < 0 ? null : categoryIndex, readInts(in)));
+            }
+        }
+        question.category = readString(in);
+        question.difficulty = readString(in);
+        long version = in.getLong();
+        question.version = version < 0 ? null : version;
+        return question;
+    }
+
+    private static void writeKey(DataOutputStream out, AccessKey key) throws IOException {
+        out.write(key.id.toByteArray());
+        out.write(HEX.parseHex(ApiKeyCache.hash(key.key)));
+        out.writeByte(key.role.ordinal());
+        writeString(out, key.userId);
+        out.writeDouble(key.rateLimitPerSecond == null ? Double.NaN : key.rateLimitPerSecond);
+        out.writeInt(key.rateLimitBurst == null ? -1 : key.rateLimitBurst);
+    }
+
+    private static ApiKeyCache.ResolvedKey readKey(ByteBuffer in) {
+        byte[] id = new byte[12];
+        in.get(id);
+        byte[] hash = new byte[32];
+        in.get(hash);
+        KeyRole role = ROLES[in.get()];
+        String userId = readString(in);
+        double perSecond = in.getDouble();
+        int burst = in.getInt();
+        return new ApiKeyCache.ResolvedKey(new ObjectId(id), HEX.formatHex(hash), role, userId,
+            Double.isNaN(perSecond) ? null : perSecond, burst < 0 ? null : burst);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static List<String> readStrings(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0) return null;
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    // null-Elemente kommen in Indexlisten nicht vor und werden als -1 geschrieben
+    private static void writeInts(DataOutputStream out, List<Integer> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.size());
+        for (Integer value : values) {
+            out.writeInt(value == null ? -1 : value);
+        }
+    }
+
+    private static List<Integer> readInts(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0) return null;
+        List<Integer> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(in.getInt());
+        }
+        return values;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+        long count;
+
+        CountingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+    }
+}
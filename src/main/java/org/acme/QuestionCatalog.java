@@ -0,0 +1,586 @@
+package org.acme;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Lesekatalog aller Fragen im Speicher, nach ID sortiert.
+ * Kategorie, Schwierigkeit und Fragetyp sind als Wörterbuch kodiert, mit einer Bitmap je Wert; ein Filter ist damit
+ * ein UND über höchstens drei Bitmaps, eine Zufallsfrage ein Select auf dem Ergebnis.
+ * Schreibzugriffe veröffentlichen einen neuen, unveränderlichen Snapshot; Leser holen sich nur die aktuelle Referenz.
+ * Veröffentlicht wird nur eine neuere Version als die bekannte, sodass gleichzeitige Schreiber in beliebiger
+ * Reihenfolge fertig werden dürfen, ohne dass ein älterer Stand den neueren überschreibt.
+ * Solange kein Snapshot geladen ist, gehen alle Anfragen ohne Sperre an den Speicher; geladen wird im Hintergrund
+ * mit wachsendem Abstand zwischen den Versuchen.
+ */
+@ApplicationScoped
+public class QuestionCatalog {
+
+    private static final Logger LOG = Logger.getLogger(QuestionCatalog.class);
+
+    @Inject
+    QuestionStore repository;
+
+    @ConfigProperty(name = "app.catalog.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.catalog.retry-min", defaultValue = "1s")
+    Duration retryMin;
+
+    @ConfigProperty(name = "app.catalog.retry-max", defaultValue = "1m")
+    Duration retryMax;
+
+    private volatile Snapshot snapshot;
+
+    // Siehe revision(); geschrieben nur unter writeLock
+    private volatile long revision = -1;
+
+    // Schreiber serialisieren; Leser sperren nie. Ein Lock statt synchronized, damit ein Ladevorgang
+    // auf einem virtuellen Thread dessen Träger-Thread nicht festhält
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // Zuletzt übernommene Version je ID seit dem letzten Laden, auch ohne geladenen Snapshot. Gelöschte Fragen bleiben
+    // als Grabstein stehen, damit eine verspätete Änderung sie nicht wieder einfügt. Nur unter writeLock.
+    private final Map<ObjectId, Long> published = new HashMap<>();
+
+    // Nächster Ladeversuch und Abstand danach, nur vom Scheduler benutzt
+    private volatile long nextAttemptMs;
+    private Duration retryDelay;
+
+    // Auch der erste Versuch läuft hier und nicht im Startereignis: bei nicht erreichbarer Datenbank würde er den Start
+    // um das Server-Selection-Timeout verzögern. Nach einem Warmstart ist der Katalog schon da.
+    @Scheduled(every = "1s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void retryLoad() {
+        if (enabled && snapshot == null && System.currentTimeMillis() >= nextAttemptMs) {
+            load();
+        }
+    }
+
+    // Ein Ladeversuch; bei Fehler verdoppelt sich der Abstand zum nächsten bis retryMax
+    private void load() {
+        if (retryDelay == null) retryDelay = retryMin;
+        try {
+            reload();
+            retryDelay = retryMin;
+        } catch (RuntimeException e) {
+            LOG.warnf("Fragenkatalog nicht geladen, Anfragen gehen an den Speicher; neuer Versuch in %s: %s", retryDelay, e.getMessage());
+            nextAttemptMs = System.currentTimeMillis() + retryDelay.toMillis();
+            retryDelay = retryDelay.multipliedBy(2).compareTo(retryMax) > 0 ? retryMax : retryDelay.multipliedBy(2);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isLoaded() {
+        return enabled && snapshot != null;
+    }
+
+    /**
+     * Prüfsumme über ID und Version aller Fragen des aktuellen Stands, auf allen Instanzen gleich; null ohne Snapshot
+     */
+    public Long digest() {
+        Snapshot current = current();
+        return current == null ? null : current.digest;
+    }
+
+    /**
+     * Übernimmt Fragen aus dem Warmstart-Abbild, sofern noch nichts geladen ist
+     */
+    public void restore(List<QuizQuestion> questions) {
+        writeLock.lock();
+        try {
+            if (snapshot != null) return;
+            List<QuizQuestion> sorted = new ArrayList<>(questions);
+            sorted.sort((a, b) -> a.id.compareTo(b.id));
+            snapshot = Snapshot.of(sorted);
+            revision = -1;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Lädt alle Fragen neu aus dem Speicher
+     */
+    public void reload() {
+        reload((upserted, deleted) -> { });
+    }
+
+    /**
+     * Lädt neu und übergibt, was sich gegenüber dem bisherigen Snapshot geändert hat (neue oder andere Version, gelöscht).
+     * changed läuft unter der Schreibsperre, wie die Folgeschritte einer eigenen Änderung.
+     */
+    public void reload(BiConsumer<List<QuizQuestion>, List<ObjectId>> changed) {
+        writeLock.lock();
+        try {
+            // Vor dem Lesen: was danach geschrieben wird, hat eine größere Revision und fällt beim Abgleich auf
+            long loaded = repository.revision();
+            List<QuizQuestion> all = new ArrayList<>();
+            repository.forEachMatching(QuestionFilter.ALL, all::add);
+            all.sort((a, b) -> a.id.compareTo(b.id));
+            Snapshot previous = snapshot;
+            snapshot = Snapshot.of(all);
+            revision = loaded;
+            // Der gelesene Stand ist mindestens so neu wie alles, was bis hierher veröffentlicht wurde
+            published.clear();
+            if (previous != null) {
+                diff(previous, snapshot, changed);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Revision des Speichers, deren Stand der Snapshot mindestens enthält; -1 ohne Snapshot oder nach einem Warmstart
+     */
+    public long revision() {
+        return current() == null ? -1 : revision;
+    }
+
+    /**
+     * Der Abgleich hat bis seen nur eigene, schon veröffentlichte Änderungen gefunden
+     */
+    public void advance(long seen) {
+        writeLock.lock();
+        try {
+            if (snapshot != null && revision >= 0 && seen > revision) revision = seen;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Alle Fragen des aktuellen Stands; die Instanzen gehören dem Snapshot und dürfen nicht verändert werden
+     */
+    public List<QuizQuestion> listAll() {
+        Snapshot current = current();
+        if (current == null) {
+            return repository.listAll();
+        }
+        return Collections.unmodifiableList(Arrays.asList(current.questions));
+    }
+
+    /**
+     * Alle Fragen, reduziert auf die angegebenen Felder
+     */
+    public List<Map<String, Object>> listProjected(Collection<String> fields) {
+        Snapshot current = current();
+        if (current == null) {
+            return repository.listProjected(fields);
+        }
+        List<Map<String, Object>> projected = new ArrayList<>(current.questions.length);
+        for (QuizQuestion question : current.questions) {
+            projected.add(question.project(fields));
+        }
+        return projected;
+    }
+
+    public QuizQuestion findById(ObjectId id) {
+        Snapshot current = current();
+        if (current == null) {
+            return repository.findById(id);
+        }
+        int position = Arrays.binarySearch(current.ids, id);
+        return position >= 0 ? current.questions[position] : null;
+    }
+
+    public QuestionPage<QuizQuestion> findPage(QuestionFilter filter, ObjectId after, int limit) {
+        Snapshot current = current();
+        if (current == null) {
+            return repository.findPage(filter, after, limit);
+        }
+        return current.page(filter, after, limit, Function.identity());
+    }
+
+    public QuestionPage<Map<String, Object>> findProjected(QuestionFilter filter, Collection<String> fields, ObjectId after, int limit) {
+        Snapshot current = current();
+        if (current == null) {
+            return repository.findProjected(filter, fields, after, limit);
+        }
+        return current.page(filter, after, limit, question -> question.project(fields));
+    }
+
+    public QuizQuestion sampleOne(QuestionFilter filter) {
+        Snapshot current = current();
+        if (current == null) {
+            return repository.sampleOne(filter);
+        }
+        return current.sample(filter);
+    }
+
+    /**
+     * Bis zu size verschiedene zufällige IDs aus dem Snapshot, ohne Datenbankabfrage
+     */
+    public List<ObjectId> sampleIds(QuestionFilter filter, int size) {
+        Snapshot current = current();
+        if (current == null) {
+            return repository.sampleIds(filter, size);
+        }
+        return current.sampleIds(filter, size);
+    }
+
+    /**
+     * Geänderte Frage übernehmen, wenn ihre Version neuer ist als die bekannte; nur dann läuft effects,
+     * unter derselben Sperre. So folgen auch Suchindex, JSON-Cache, ETags und Änderungsstrom der Versionsreihenfolge.
+     * Die Objekte werden kopiert, spätere Änderungen daran wirken nicht.
+     */
+    public boolean upsert(QuizQuestion question, Runnable effects) {
+        return !upsert(List.of(question), accepted -> effects.run()).isEmpty();
+    }
+
+    /**
+     * Wie {@link #upsert(QuizQuestion, Runnable)} für mehrere Fragen; effects bekommt die übernommenen
+     */
+    public List<QuizQuestion> upsert(List<QuizQuestion> questions, Consumer<List<QuizQuestion>> effects) {
+        return publish(questions, false, effects);
+    }
+
+    /**
+     * Neu angelegte Fragen: immer übernehmen, auch über den Grabstein einer früher gelöschten Frage derselben ID
+     */
+    public void insert(List<QuizQuestion> questions, Consumer<List<QuizQuestion>> effects) {
+        publish(questions, true, effects);
+    }
+
+    /**
+     * Gelöschte Frage entfernen und einen Grabstein mit ihrer letzten Version setzen, danach effects
+     */
+    public void delete(QuizQuestion question, Runnable effects) {
+        writeLock.lock();
+        try {
+            published.put(question.id, question.currentVersion());
+            merge(new TreeMap<>(), Set.of(question.id));
+            effects.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Ohne Snapshot null: der Aufrufer fragt den Speicher, geladen wird nur im Hintergrund
+    private Snapshot current() {
+        return enabled ? snapshot : null;
+    }
+
+    private List<QuizQuestion> publish(List<QuizQuestion> questions, boolean created, Consumer<List<QuizQuestion>> effects) {
+        writeLock.lock();
+        try {
+            TreeMap<ObjectId, QuizQuestion> changes = new TreeMap<>();
+            List<QuizQuestion> accepted = new ArrayList<>(questions.size());
+            for (QuizQuestion question : questions) {
+                if (question.id == null || !(created || isNewer(question))) continue;
+                published.put(question.id, question.currentVersion());
+                changes.put(question.id, question.copy());
+                accepted.add(question);
+            }
+            if (accepted.isEmpty()) return accepted;
+            merge(changes, Set.of());
+            effects.accept(accepted);
+            return accepted;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Neuer als der zuletzt übernommene Stand bzw. Grabstein, ohne solchen als der Stand im Snapshot
+    private boolean isNewer(QuizQuestion question) {
+        long version = question.currentVersion();
+        Long known = published.get(question.id);
+        if (known != null) {
+            return version > known;
+        }
+        Snapshot base = snapshot;
+        if (base == null) return true;
+        int position = Arrays.binarySearch(base.ids, question.id);
+        return position < 0 || version > base.questions[position].currentVersion();
+    }
+
+    // Ein Durchlauf über beide nach ID sortierten Stände
+    private static void diff(Snapshot before, Snapshot after, BiConsumer<List<QuizQuestion>, List<ObjectId>> changed) {
+        List<QuizQuestion> upserted = new ArrayList<>();
+        List<ObjectId> deleted = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < before.ids.length || j < after.ids.length) {
+            int order = i == before.ids.length ? 1 : j == after.ids.length ? -1 : before.ids[i].compareTo(after.ids[j]);
+            if (order < 0) {
+                deleted.add(before.ids[i++]);
+            } else if (order > 0) {
+                upserted.add(after.questions[j++]);
+            } else {
+                if (before.questions[i].currentVersion() != after.questions[j].currentVersion()) {
+                    upserted.add(after.questions[j]);
+                }
+                i++;
+                j++;
+            }
+        }
+        if (!upserted.isEmpty() || !deleted.isEmpty()) {
+            changed.accept(upserted, deleted);
+        }
+    }
+
+    /**
+     * Mischt Änderungen in einen neuen Snapshot (ein Durchlauf über die sortierten IDs) und veröffentlicht ihn.
+     * Nur unter writeLock.
+     */
+    private void merge(TreeMap<ObjectId, QuizQuestion> changes, Set<ObjectId> deletes) {
+        Snapshot base = snapshot;
+        // Noch nicht geladen: der spätere Ladevorgang liest den neuen Stand ohnehin aus der Datenbank
+        if (base == null) return;
+
+        List<QuizQuestion> merged = new ArrayList<>(base.questions.length + changes.size());
+        var pending = changes.entrySet().iterator();
+        var next = pending.hasNext() ? pending.next() : null;
+        for (QuizQuestion existing : base.questions) {
+            while (next != null && next.getKey().compareTo(existing.id) < 0) {
+                merged.add(next.getValue());
+                next = pending.hasNext() ? pending.next() : null;
+            }
+            if (next != null && next.getKey().equals(existing.id)) {
+                merged.add(next.getValue());
+                next = pending.hasNext() ? pending.next() : null;
+            } else if (!deletes.contains(existing.id)) {
+                merged.add(existing);
+            }
+        }
+        while (next != null) {
+            merged.add(next.getValue());
+            next = pending.hasNext() ? pending.next() : null;
+        }
+        snapshot = Snapshot.of(merged);
+    }
+
+    /**
+     * Unveränderlicher Stand: Fragen nach ID sortiert, Bitmaps über die Position im Array
+     */
+    static final class Snapshot {
+        final ObjectId[] ids;
+        final QuizQuestion[] questions;
+        final FacetIndex byType;
+        final FacetIndex byCategory;
+        final FacetIndex byDifficulty;
+        final long digest;
+
+        private Snapshot(ObjectId[] ids, QuizQuestion[] questions) {
+            this.ids = ids;
+            this.questions = questions;
+            this.byType = FacetIndex.of(questions, question -> question.questionType);
+            this.byCategory = FacetIndex.of(questions, question -> question.category);
+            this.byDifficulty = FacetIndex.of(questions, question -> question.difficulty);
+            this.digest = digest(questions);
+        }
+
+        // Summe gemischter Hashes aus ID und Version: unabhängig von der Reihenfolge, gleich für gleiche Stände
+        // auf jeder Instanz, und jedes Anlegen, Ändern oder Löschen verschiebt sie
+        private static long digest(QuizQuestion[] questions) {
+            long digest = 0;
+            for (QuizQuestion question : questions) {
+                ByteBuffer bytes = ByteBuffer.wrap(question.id.toByteArray());
+                long hash = mix(bytes.getLong() ^ mix(bytes.getInt()));
+                digest += mix(hash ^ question.currentVersion());
+            }
+            return digest;
+        }
+
+        // Finalizer aus SplitMix64
+        private static long mix(long value) {
+            value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+            value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+            return value ^ (value >>> 31);
+        }
+
+        static Snapshot of(List<QuizQuestion> sorted) {
+            QuizQuestion[] questions = sorted.toArray(QuizQuestion[]::new);
+            ObjectId[] ids = new ObjectId[questions.length];
+            for (int i = 0; i < questions.length; i++) {
+                ids[i] = questions[i].id;
+            }
+            return new Snapshot(ids, questions);
+        }
+
+        <T> QuestionPage<T> page(QuestionFilter filter, ObjectId after, int limit, Function<QuizQuestion, T> mapper) {
+            int pageSize = QuestionStore.clampPageSize(limit);
+            long[][] bitmaps = bitmaps(filter);
+            if (bitmaps == null) {
+                return new QuestionPage<>(List.of(), null);
+            }
+
+            int start = 0;
+            if (after != null) {
+                int found = Arrays.binarySearch(ids, after);
+                start = found >= 0 ? found + 1 : -found - 1;
+            }
+
+            List<T> items = new ArrayList<>(pageSize);
+            int last = -1;
+            for (int word = start >>> 6; word < words(); word++) {
+                long bits = word(bitmaps, word);
+                if (word == start >>> 6) bits &= -1L << (start & 63);
+                while (bits != 0) {
+                    int position = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    if (items.size() == pageSize) {
+                        return new QuestionPage<>(items, ids[last].toHexString());
+                    }
+                    items.add(mapper.apply(questions[position]));
+                    last = position;
+                    bits &= bits - 1;
+                }
+            }
+            return new QuestionPage<>(items, null);
+        }
+
+        QuizQuestion sample(QuestionFilter filter) {
+            long[][] bitmaps = bitmaps(filter);
+            if (bitmaps == null) return null;
+
+            int count = 0;
+            for (int word = 0; word < words(); word++) {
+                count += Long.bitCount(word(bitmaps, word));
+            }
+            if (count == 0) return null;
+
+            // Select: das rank-te gesetzte Bit suchen
+            int rank = ThreadLocalRandom.current().nextInt(count);
+            for (int word = 0; word < words(); word++) {
+                long bits = word(bitmaps, word);
+                int inWord = Long.bitCount(bits);
+                if (rank >= inWord) {
+                    rank -= inWord;
+                    continue;
+                }
+                for (int i = 0; i < rank; i++) {
+                    bits &= bits - 1;
+                }
+                return questions[(word << 6) + Long.numberOfTrailingZeros(bits)];
+            }
+            return null;
+        }
+
+        List<ObjectId> sampleIds(QuestionFilter filter, int size) {
+            long[][] bitmaps = bitmaps(filter);
+            if (bitmaps == null) return List.of();
+
+            int[] positions = new int[questions.length];
+            int count = 0;
+            for (int word = 0; word < words(); word++) {
+                long bits = word(bitmaps, word);
+                while (bits != 0) {
+                    positions[count++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                }
+            }
+
+            // Teilweises Fisher-Yates: nur die ersten size Positionen mischen
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int drawn = Math.min(size, count);
+            List<ObjectId> sampled = new ArrayList<>(drawn);
+            for (int i = 0; i < drawn; i++) {
+                int j = i + random.nextInt(count - i);
+                int position = positions[j];
+                positions[j] = positions[i];
+                sampled.add(ids[position]);
+            }
+            return sampled;
+        }
+
+        /**
+         * Bitmaps der gesetzten Kriterien; null, wenn ein Wert gar nicht vorkommt (leeres Ergebnis)
+         */
+        private long[][] bitmaps(QuestionFilter filter) {
+            long[][] bitmaps = new long[3][];
+            int n = 0;
+            if (filter.type() != null) {
+                long[] bitmap = byType.bitmap(filter.type());
+                if (bitmap == null) return null;
+                bitmaps[n++] = bitmap;
+            }
+            if (filter.category() != null) {
+                long[] bitmap = byCategory.bitmap(filter.category());
+                if (bitmap == null) return null;
+                bitmaps[n++] = bitmap;
+            }
+            if (filter.difficulty() != null) {
+                long[] bitmap = byDifficulty.bitmap(filter.difficulty());
+                if (bitmap == null) return null;
+                bitmaps[n++] = bitmap;
+            }
+            return Arrays.copyOf(bitmaps, n);
+        }
+
+        private int words() {
+            return (questions.length + 63) >>> 6;
+        }
+
+        // Ohne Kriterien sind alle Positionen gesetzt, im letzten Wort nur die belegten
+        private long word(long[][] bitmaps, int word) {
+            long bits = word == words() - 1 && (questions.length & 63) != 0
+                ? (1L << (questions.length & 63)) - 1
+                : -1L;
+            for (long[] bitmap : bitmaps) {
+                bits &= bitmap[word];
+            }
+            return bits;
+        }
+    }
+
+    /**
+     * Wörterbuch eines Merkmals (Wert → Code) und je Code eine Bitmap über die Positionen
+     */
+    static final class FacetIndex {
+        private final Map<String, Integer> codes;
+        private final long[][] bitmaps;
+
+        private FacetIndex(Map<String, Integer> codes, long[][] bitmaps) {
+            this.codes = codes;
+            this.bitmaps = bitmaps;
+        }
+
+        static FacetIndex of(QuizQuestion[] questions, Function<QuizQuestion, String> facet) {
+            int words = (questions.length + 63) >>> 6;
+            Map<String, Integer> codes = new HashMap<>();
+            List<long[]> bitmaps = new ArrayList<>();
+            for (int position = 0; position < questions.length; position++) {
+                String value = facet.apply(questions[position]);
+                if (value == null) continue;
+                Integer code = codes.get(value);
+                if (code == null) {
+                    code = bitmaps.size();
+                    codes.put(value, code);
+                    bitmaps.add(new long[words]);
+                }
+                bitmaps.get(code)[position >>> 6] |= 1L << position;
+            }
+            return new FacetIndex(Map.copyOf(codes), bitmaps.toArray(long[][]::new));
+        }
+
+        long[] bitmap(String value) {
+            Integer code = codes.get(value);
+            return code == null ? null : bitmaps[code];
+        }
+    }
+}
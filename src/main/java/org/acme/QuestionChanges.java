@@ -0,0 +1,310 @@
+package org.acme;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+/**
+ * Fortlaufend nummerierte Änderungen am Fragenbestand für Delta-Abgleich und Server-Sent Events.
+ * Die letzten app.changes.retained Änderungen liegen in einem Ringpuffer; wer weiter zurückliegt, bekommt reset
+ * und lädt einmal komplett. Die Nummern beginnen bei Startzeit in ms · 1000 und steigen damit auch über Neustarts.
+ * Jeder Abonnent hat eine beschränkte Warteschlange, gesendet wird der Reihe nach und asynchron.
+ * Läuft sie über, wird die Verbindung geschlossen; der Client holt den Rückstand über since nach, statt dass der Server puffert.
+ */
+@ApplicationScoped
+public class QuestionChanges {
+
+    private static final Logger LOG = Logger.getLogger(QuestionChanges.class);
+
+    @Inject
+    QuestionCatalog catalog;
+
+    @Inject
+    QuestionJsonCache jsonCache;
+
+    @ConfigProperty(name = "app.changes.retained", defaultValue = "10000")
+    int retained;
+
+    @ConfigProperty(name = "app.changes.subscriber-buffer", defaultValue = "256")
+    int subscriberBuffer;
+
+    @ConfigProperty(name = "app.changes.max-subscribers", defaultValue = "1000")
+    int maxSubscribers;
+
+    private Change[] ring;
+    // Erste Nummer, für die der Ring Änderungen kennt
+    private long first = System.currentTimeMillis() * 1000;
+    // Nummer der nächsten Änderung; die letzte vergebene ist next - 1
+    private long next = first;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void init() {
+        ring = new Change[retained];
+    }
+
+    public void upserted(ObjectId id) {
+        record(List.of(id), ChangeType.UPSERT);
+    }
+
+    public void upserted(List<QuizQuestion> questions) {
+        List<ObjectId> ids = new ArrayList<>(questions.size());
+        for (QuizQuestion question : questions) ids.add(question.id);
+        record(ids, ChangeType.UPSERT);
+    }
+
+    public void deleted(ObjectId id) {
+        record(List.of(id), ChangeType.DELETE);
+    }
+
+    /**
+     * Änderungen nach since, je Frage nur die letzte; gelöschte nur als ID
+     */
+    public ChangeSet since(long since) {
+        Map<ObjectId, Change> latest = new LinkedHashMap<>();
+        long sequence;
+        lock.lock();
+        try {
+            sequence = next - 1;
+            if (!covers(since)) {
+                return new ChangeSet(sequence, true, List.of(), List.of());
+            }
+            for (long s = since + 1; s < next; s++) {
+                Change change = ring[slot(s)];
+                latest.remove(change.id);
+                latest.put(change.id, change);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        List<QuizQuestion> upserted = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        for (Change change : latest.values()) {
+            QuizQuestion question = change.type == ChangeType.UPSERT ? catalog.findById(change.id) : null;
+            if (question != null) {
+                upserted.add(question);
+            } else {
+                deleted.add(change.id.toHexString());
+            }
+        }
+        return new ChangeSet(sequence, false, upserted, deleted);
+    }
+
+    /**
+     * Meldet einen Abonnenten an; mit since werden zuerst die verpassten Änderungen gesendet.
+     * Ist der Rückstand größer als der Puffer oder nicht mehr vorhanden, kommt stattdessen ein reset-Ereignis.
+     */
+    public void subscribe(SseEventSink sink, Sse sse, Long since) {
+        if (subscribers.size() >= maxSubscribers) {
+            sink.send(sse.newEventBuilder().name("reset").data("{\"reason\":\"busy\"}").build())
+                .whenComplete((ignored, error) -> sink.close());
+            return;
+        }
+        Subscriber subscriber = new Subscriber(sink, sse, subscriberBuffer);
+        lock.lock();
+        try {
+            if (since != null) {
+                long missed = next - 1 - since;
+                if (!covers(since) || missed > subscriberBuffer) {
+                    subscriber.queue.offer(Event.reset(next - 1));
+                } else {
+                    for (long s = since + 1; s < next; s++) {
+                        subscriber.queue.offer(Event.of(ring[slot(s)]));
+                    }
+                }
+            }
+            subscribers.add(subscriber);
+        } finally {
+            lock.unlock();
+        }
+        drain(subscriber);
+    }
+
+    /**
+     * Änderungen unbekannten Umfangs: kein bisheriger Stand gilt mehr als abgedeckt, alle Abonnenten laden neu
+     */
+    public void reset() {
+        lock.lock();
+        try {
+            next++;
+            first = next;
+            for (Subscriber subscriber : subscribers) {
+                enqueue(subscriber, Event.reset(next - 1));
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Subscriber subscriber : subscribers) {
+            drain(subscriber);
+        }
+    }
+
+    // Hält Verbindungen über Proxies hinweg offen und erkennt geschlossene Clients
+    @Scheduled(every = "${app.changes.heartbeat:30s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sink.isClosed()) {
+                subscribers.remove(subscriber);
+            } else {
+                enqueue(subscriber, Event.PING);
+                drain(subscriber);
+            }
+        }
+    }
+
+    private void record(List<ObjectId> ids, ChangeType type) {
+        Set<Subscriber> notified = new HashSet<>();
+        lock.lock();
+        try {
+            for (ObjectId id : ids) {
+                Change change = new Change(next, id, type);
+                ring[slot(next)] = change;
+                next++;
+                // Unter der Sperre, damit jeder Abonnent die Änderungen in Nummernfolge bekommt
+                for (Subscriber subscriber : subscribers) {
+                    if (enqueue(subscriber, Event.of(change))) notified.add(subscriber);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Subscriber subscriber : notified) {
+            drain(subscriber);
+        }
+    }
+
+    // since ist abgedeckt, wenn alle Änderungen danach noch im Ring liegen
+    private boolean covers(long since) {
+        long oldest = Math.max(next - retained, first);
+        return since >= oldest - 1 && since < next;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % retained);
+    }
+
+    private boolean enqueue(Subscriber subscriber, Event event) {
+        if (subscriber.queue.offer(event)) return true;
+        LOG.debugf("Abonnent zu langsam, %d Ereignisse ausstehend: Verbindung wird geschlossen", subscriberBuffer);
+        close(subscriber);
+        return false;
+    }
+
+    /**
+     * Sendet das nächste Ereignis, sobald das vorige geschrieben ist; höchstens ein Sendevorgang je Abonnent
+     */
+    private void drain(Subscriber subscriber) {
+        if (!subscriber.sending.compareAndSet(false, true)) return;
+        Event event = subscriber.queue.poll();
+        if (event == null) {
+            subscriber.sending.set(false);
+            // Ein Ereignis kann zwischen poll und set angekommen sein
+            if (!subscriber.queue.isEmpty()) drain(subscriber);
+            return;
+        }
+        if (subscriber.sink.isClosed()) {
+            close(subscriber);
+            return;
+        }
+        subscriber.sink.send(outbound(subscriber.sse, event)).whenComplete((ignored, error) -> {
+            subscriber.sending.set(false);
+            if (error != null) {
+                close(subscriber);
+            } else {
+                drain(subscriber);
+            }
+        });
+    }
+
+    private OutboundSseEvent outbound(Sse sse, Event event) {
+        OutboundSseEvent.Builder builder = sse.newEventBuilder().name(event.name).mediaType(MediaType.TEXT_PLAIN_TYPE);
+        if (event.sequence >= 0) {
+            builder.id(Long.toString(event.sequence));
+        }
+        if (event.change == null) {
+            return builder.data(event.sequence >= 0 ? "{\"sequence\":" + event.sequence + "}" : "{}").build();
+        }
+        // Aktueller Stand aus dem Katalog; ist die Frage inzwischen gelöscht, folgt das delete-Ereignis.
+        // Ohne geladenen Katalog nur die ID, damit der Sendepfad nie auf die Datenbank wartet.
+        String id = event.change.id.toHexString();
+        StringBuilder data = new StringBuilder(256)
+            .append("{\"sequence\":").append(event.sequence)
+            .append(",\"id\":\"").append(id).append('"');
+        QuizQuestion question = event.change.type == ChangeType.UPSERT && catalog.isLoaded() ? catalog.findById(event.change.id) : null;
+        if (question != null) {
+            data.append(",\"question\":").append(new String(jsonCache.json(question), StandardCharsets.UTF_8));
+        }
+        return builder.data(data.append('}').toString()).build();
+    }
+
+    private void close(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.queue.clear();
+            subscriber.sink.close();
+        }
+    }
+
+    public enum ChangeType {
+        UPSERT,
+        DELETE
+    }
+
+    private record Change(long sequence, ObjectId id, ChangeType type) { }
+
+    /**
+     * Ein SSE-Ereignis: upsert/delete mit Änderung, reset (neu laden ab sequence) oder ping
+     */
+    private record Event(String name, long sequence, Change change) {
+        static final Event PING = new Event("ping", -1, null);
+
+        static Event of(Change change) {
+            return new Event(change.type == ChangeType.UPSERT ? "upsert" : "delete", change.sequence, change);
+        }
+
+        static Event reset(long sequence) {
+            return new Event("reset", sequence, null);
+        }
+    }
+
+    private static final class Subscriber {
+        final SseEventSink sink;
+        final Sse sse;
+        final BlockingQueue<Event> queue;
+        final AtomicBoolean sending = new AtomicBoolean();
+
+        Subscriber(SseEventSink sink, Sse sse, int capacity) {
+            this.sink = sink;
+            this.sse = sse;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    /**
+     * Antwort auf /changes: letzte Nummer, reset = komplett neu laden, sonst geänderte Fragen und gelöschte IDs
+     */
+    public record ChangeSet(long sequence, boolean reset, List<QuizQuestion> upserted, List<String> deleted) { }
+}
@@ -0,0 +1,32 @@
+package org.acme;
+
+import org.bson.Document;
+
+/**
+ * Filterkriterien für Fragen; null bedeutet "nicht einschränken"
+ */
+public record QuestionFilter(String type, String category, String difficulty) {
+
+    public static final QuestionFilter ALL = new QuestionFilter(null, null, null);
+
+    public boolean isEmpty() {
+        return type == null && category == null && difficulty == null;
+    }
+
+    public boolean matches(QuizQuestion question) {
+        return (type == null || type.equals(question.questionType))
+            && (category == null || category.equals(question.category))
+            && (difficulty == null || difficulty.equals(question.difficulty));
+    }
+
+    /**
+     * Mongo-Abfrage, die nur die gesetzten Kriterien enthält
+     */
+    public Document toDocument() {
+        Document query = new Document();
+        if (type != null) query.append("questionType", type);
+        if (category != null) query.append("category", category);
+        if (difficulty != null) query.append("difficulty", difficulty);
+        return query;
+    }
+}
@@ -0,0 +1,291 @@
+package org.acme;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Massenimport von Fragen aus NDJSON oder einem JSON-Array.
+ * Der Body wird gestreamt, pro Batch parallel validiert und mit einem einzigen insertMany/bulkWrite geschrieben.
+ */
+@ApplicationScoped
+public class QuestionImporter {
+
+    @Inject
+    QuestionStore repository;
+
+    @Inject
+    QuestionStatistics statistics;
+
+    @Inject
+    GradingService gradingService;
+
+    @Inject
+    QuestionVersions versions;
+
+    @Inject
+    QuestionSearchIndex searchIndex;
+
+    @Inject
+    QuestionCatalog catalog;
+
+    @Inject
+    QuestionJsonCache jsonCache;
+
+    @Inject
+    QuestionChanges changes;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "app.import.batch-size", defaultValue = "1000")
+    int batchSize;
+
+    @ConfigProperty(name = "app.import.max-reported-errors", defaultValue = "1000")
+    int maxReportedErrors;
+
+    /**
+     * Importiere NDJSON: jede Zeile ist eine Frage, Parse-Fehler betreffen nur die jeweilige Zeile
+     */
+    public ImportReport importNdjson(InputStream body, boolean upsert) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(QuizQuestion.class);
+        Batch batch = new Batch(upsert);
+
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+
+                try {
+                    batch.add(lineNumber, reader.readValue(line));
+                } catch (JsonProcessingException e) {
+                    batch.report.total++;
+                    batch.report.error(lineNumber, "Ungültiges JSON: " + e.getOriginalMessage());
+                }
+            }
+        }
+
+        return batch.finish();
+    }
+
+    /**
+     * Importiere ein JSON-Array; die Zeilennummer im Bericht ist die Position im Array (ab 1).
+     * Jedes Element wird erst als Baum gelesen und dann einzeln umgewandelt: passt ein Element nicht zur Frage
+     * (falscher Typ, unbekannter Wert), betrifft das wie bei NDJSON nur dieses Element.
+     */
+    public ImportReport importJsonArray(InputStream body, boolean upsert) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(QuizQuestion.class);
+        Batch batch = new Batch(upsert);
+
+        int position = 0;
+        try (MappingIterator<JsonNode> items = objectMapper.readerFor(JsonNode.class).readValues(body)) {
+            while (items.hasNextValue()) {
+                JsonNode item = items.nextValue();
+                position++;
+                try {
+                    batch.add(position, reader.readValue(item));
+                } catch (JsonProcessingException e) {
+                    batch.report.total++;
+                    batch.report.error(position, "Ungültige Frage: " + e.getOriginalMessage());
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // Nach einem Syntaxfehler im Array lässt sich nicht sicher weiterlesen
+            batch.report.error(position + 1, "Ungültiges JSON, Import abgebrochen: " + e.getOriginalMessage());
+        }
+
+        return batch.finish();
+    }
+
+    private final class Batch {
+        final boolean upsert;
+        final ImportReport.Builder report = new ImportReport.Builder(maxReportedErrors);
+        final List<QuizQuestion> questions = new ArrayList<>(batchSize);
+        final List<Integer> lineNumbers = new ArrayList<>(batchSize);
+
+        Batch(boolean upsert) {
+            this.upsert = upsert;
+        }
+
+        void add(int lineNumber, QuizQuestion question) {
+            report.total++;
+            if (question == null) {
+                report.error(lineNumber, "Leerer Eintrag");
+                return;
+            }
+            questions.add(question);
+            lineNumbers.add(lineNumber);
+            if (questions.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        ImportReport finish() {
+            flush();
+            // Ersetzte Dokumente können ihre Facette gewechselt haben, daher einmal neu zählen
+            if (report.statisticsStale) {
+                statistics.rebuild();
+            }
+            return report.finish();
+        }
+
+        void flush() {
+            if (questions.isEmpty()) return;
+
+            // Normalisieren und Validieren ist reine CPU-Arbeit und läuft parallel
+            boolean[] valid = new boolean[questions.size()];
+            IntStream.range(0, questions.size()).parallel().forEach(i -> {
+                QuizQuestion question = questions.get(i);
+                if (question.questionType != null) {
+                    question.normalizeData();
+                }
+                valid[i] = question.isValid();
+            });
+
+            List<QuizQuestion> accepted = new ArrayList<>(questions.size());
+            List<Integer> acceptedLines = new ArrayList<>(questions.size());
+            for (int i = 0; i < valid.length; i++) {
+                if (valid[i]) {
+                    accepted.add(questions.get(i));
+                    acceptedLines.add(lineNumbers.get(i));
+                } else {
+                    report.error(lineNumbers.get(i), "Ungültige Fragendaten");
+                }
+            }
+
+            if (!accepted.isEmpty()) {
+                if (upsert) {
+                    upsert(accepted, acceptedLines);
+                } else {
+                    insert(accepted, acceptedLines);
+                }
+            }
+
+            questions.clear();
+            lineNumbers.clear();
+        }
+
+        private void insert(List<QuizQuestion> accepted, List<Integer> acceptedLines) {
+            // Neue Dokumente beginnen wie beim Anlegen bei Version 0, unabhängig vom Import
+            for (QuizQuestion question : accepted) {
+                question.version = 0L;
+            }
+            Map<Integer, String> failures = statistics.tracked(() -> {
+                Map<Integer, String> failed = repository.insertMany(accepted);
+                List<QuizQuestion> inserted = new ArrayList<>(accepted.size() - failed.size());
+                for (int i = 0; i < accepted.size(); i++) {
+                    if (!failed.containsKey(i)) {
+                        statistics.recordCreated(accepted.get(i));
+                        inserted.add(accepted.get(i));
+                    }
+                }
+                catalog.insert(inserted, this::published);
+                return failed;
+            });
+            failures.forEach((index, message) -> report.error(acceptedLines.get(index), message));
+            report.inserted += accepted.size() - failures.size();
+        }
+
+        private void upsert(List<QuizQuestion> accepted, List<Integer> acceptedLines) {
+            for (QuizQuestion question : accepted) {
+                if (question.id == null) {
+                    question.id = contentId(question);
+                }
+            }
+
+            Map<Integer, String> failures = repository.upsertMany(accepted);
+            failures.forEach((index, message) -> report.error(acceptedLines.get(index), message));
+            report.upserted += accepted.size() - failures.size();
+            report.statisticsStale = true;
+            List<ObjectId> written = new ArrayList<>(accepted.size() - failures.size());
+            for (int i = 0; i < accepted.size(); i++) {
+                QuizQuestion question = accepted.get(i);
+                gradingService.invalidate(question.id);
+                jsonCache.invalidate(question.id);
+                if (!failures.containsKey(i)) written.add(question.id);
+            }
+            // Die Version hat erst die Datenbank hochgezählt; Katalog und Suche bekommen den gespeicherten Stand
+            List<QuizQuestion> upserted = written.isEmpty() ? List.of() : repository.findByIds(written);
+            catalog.upsert(upserted, this::published);
+        }
+
+        // Unter der Katalogsperre, nur für Fragen, deren Version neuer ist als die bekannte
+        private void published(List<QuizQuestion> questions) {
+            searchIndex.index(questions);
+            for (QuizQuestion question : questions) {
+                versions.bump(question.id);
+            }
+            changes.upserted(questions);
+        }
+    }
+
+    /**
+     * Deterministische ID aus Typ, Kategorie und Fragetext, damit ein wiederholter Import keine Duplikate erzeugt
+     */
+    static ObjectId contentId(QuizQuestion question) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(question.questionType).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(question.category).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(question.question).getBytes(StandardCharsets.UTF_8));
+            return new ObjectId(Arrays.copyOf(digest.digest(), 12));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 nicht verfügbar", e);
+        }
+    }
+
+    public record ImportError(int line, String error) { }
+
+    public record ImportReport(long total, long inserted, long upserted, long failed, List<ImportError> errors, boolean errorsTruncated) {
+
+        static final class Builder {
+            final int maxErrors;
+            final List<ImportError> errors = new ArrayList<>();
+            long total;
+            long inserted;
+            long upserted;
+            long failed;
+            boolean statisticsStale;
+
+            Builder(int maxErrors) {
+                this.maxErrors = maxErrors;
+            }
+
+            void error(int line, String message) {
+                failed++;
+                if (errors.size() < maxErrors) {
+                    errors.add(new ImportError(line, message));
+                }
+            }
+
+            ImportReport finish() {
+                return new ImportReport(total, inserted, upserted, failed, errors, failed > errors.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.acme;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.vertx.core.buffer.Buffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Fertig kodiertes UTF-8-JSON je Frage. Schlüssel ist die ID, die Version ist die unveränderliche Instanz aus dem
+ * {@link QuestionCatalog}-Snapshot: jede Änderung veröffentlicht eine neue Instanz, ein Eintrag gilt also nur,
+ * solange er zur selben Instanz gehört. Ein Vergleich der Referenz reicht, ohne Zähler und ohne Wettlauf zwischen
+ * Lesen der Version und Laden der Frage.
+ * Listen werden aus den gecachten Fragmenten in einen einzigen Vert.x-Buffer zusammengesetzt;
+ * bei einem Treffer läuft Jackson gar nicht.
+ */
+@ApplicationScoped
+public class QuestionJsonCache {
+
+    private static final byte[] PAGE_START = "{\"items\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PAGE_CURSOR = "],\"nextCursor\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "app.json-cache.max-entries", defaultValue = "100000")
+    int maxEntries;
+
+    private ObjectWriter writer;
+    private final Map<ObjectId, Entry> entries = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        writer = objectMapper.writerFor(QuizQuestion.class);
+    }
+
+    /**
+     * JSON der Frage; Fragen, die nicht aus dem Katalog stammen, treffen nie und werden nur serialisiert
+     */
+    public byte[] json(QuizQuestion question) {
+        Entry entry = entries.get(question.id);
+        if (entry != null && entry.source == question) {
+            return entry.json;
+        }
+        byte[] json = serialize(question);
+        if (entries.size() >= maxEntries) {
+            entries.clear();
+        }
+        entries.put(question.id, new Entry(question, json));
+        return json;
+    }
+
+    public Buffer single(QuizQuestion question) {
+        return Buffer.buffer(json(question));
+    }
+
+    /**
+     * JSON-Array aus den Fragmenten, in einen vorab passend großen Buffer geschrieben
+     */
+    public Buffer array(List<QuizQuestion> questions) {
+        byte[][] fragments = fragments(questions);
+        Buffer buffer = Buffer.buffer(length(fragments) + 2);
+        buffer.appendByte((byte) '[');
+        appendJoined(buffer, fragments);
+        buffer.appendByte((byte) ']');
+        return buffer;
+    }
+
+    /**
+     * Gleiche Form wie {@link QuestionPage} über Jackson: {"items":[...],"nextCursor":...}
+     */
+    public Buffer page(QuestionPage<QuizQuestion> page) {
+        byte[][] fragments = fragments(page.items());
+        byte[] cursor = page.nextCursor() == null
+            ? NULL
+            : ('"' + page.nextCursor() + '"').getBytes(StandardCharsets.UTF_8);
+        Buffer buffer = Buffer.buffer(PAGE_START.length + length(fragments) + PAGE_CURSOR.length + cursor.length + 1);
+        buffer.appendBytes(PAGE_START);
+        appendJoined(buffer, fragments);
+        buffer.appendBytes(PAGE_CURSOR);
+        buffer.appendBytes(cursor);
+        buffer.appendByte((byte) '}');
+        return buffer;
+    }
+
+    public void invalidate(ObjectId id) {
+        entries.remove(id);
+    }
+
+    private byte[][] fragments(List<QuizQuestion> questions) {
+        byte[][] fragments = new byte[questions.size()][];
+        for (int i = 0; i < fragments.length; i++) {
+            fragments[i] = json(questions.get(i));
+        }
+        return fragments;
+    }
+
+    // Inhalt plus Kommas
+    private static int length(byte[][] fragments) {
+        int length = Math.max(0, fragments.length - 1);
+        for (byte[] fragment : fragments) {
+            length += fragment.length;
+        }
+        return length;
+    }
+
+    private static void appendJoined(Buffer buffer, byte[][] fragments) {
+        for (int i = 0; i < fragments.length; i++) {
+            if (i > 0) buffer.appendByte((byte) ',');
+            buffer.appendBytes(fragments[i]);
+        }
+    }
+
+    private byte[] serialize(QuizQuestion question) {
+        try {
+            return writer.writeValueAsBytes(question);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Frage " + question.id + " nicht serialisierbar", e);
+        }
+    }
+
+    private record Entry(QuizQuestion source, byte[] json) { }
+}
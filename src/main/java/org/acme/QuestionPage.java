@@ -0,0 +1,8 @@
+package org.acme;
+
+import java.util.List;
+
+/**
+ * Eine Seite von Ergebnissen; nextCursor ist die letzte ID der Seite oder null, wenn keine weiteren Einträge folgen
+ */
+public record QuestionPage<T>(List<T> items, String nextCursor) { }
@@ -0,0 +1,327 @@
+package org.acme;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Invertierter Index über Fragetext, Antworten, Zuordnungen und Textantwort.
+ * Wird nach dem Start einmal im Hintergrund aufgebaut und danach bei jedem Schreibzugriff nur für die betroffene Frage angepasst.
+ * Treffer enthalten die Listenansicht der Frage, eine Suche braucht also keinen Datenbankzugriff.
+ */
+@ApplicationScoped
+public class QuestionSearchIndex {
+
+    private static final Logger LOG = Logger.getLogger(QuestionSearchIndex.class);
+
+    // Gewichte je Feld: ein Treffer im Fragetext zählt mehr als einer in den Antworten
+    private static final float QUESTION_WEIGHT = 3f;
+    private static final float ANSWER_WEIGHT = 1f;
+    private static final float TEXT_ANSWER_WEIGHT = 1f;
+    private static final float PREFIX_FACTOR = 0.6f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final Set<String> STOPWORDS = Set.of(
+        "der", "die", "das", "den", "dem", "des", "ein", "eine", "einer", "eines", "einem", "einen",
+        "und", "oder", "ist", "sind", "im", "in", "zu", "zum", "zur", "mit", "von", "auf", "fuer", "an", "am",
+        "welche", "welcher", "welches", "was", "wie", "wird", "werden", "nicht", "es", "als", "bei");
+
+    @Inject
+    QuestionCatalog catalog;
+
+    @ConfigProperty(name = "app.search.max-prefix-terms", defaultValue = "200")
+    int maxPrefixTerms;
+
+    // Begriff -> (Frage -> Gewicht); sortiert, damit Präfixe ein Bereich im Wörterbuch sind
+    private final TreeMap<String, Map<ObjectId, Float>> postings = new TreeMap<>();
+    private final Map<ObjectId, IndexedQuestion> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean built;
+
+    // Damit gleichzeitige erste Suchen den Index nur einmal aufbauen
+    private final ReentrantLock buildLock = new ReentrantLock();
+
+    // Im Hintergrund statt im Startereignis, sobald der Katalog geladen ist (ohne Katalog direkt aus der Datenbank).
+    // Bis dahin baut die erste Suche den Index selbst auf.
+    @Scheduled(every = "1s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void buildInBackground() {
+        if (built || (catalog.isEnabled() && !catalog.isLoaded())) return;
+        try {
+            buildOnce();
+        } catch (RuntimeException e) {
+            LOG.debugf("Suchindex noch nicht aufgebaut, neuer Versuch im nächsten Lauf: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Baut den Index einmal komplett aus dem Katalog auf (nach einem Warmstart also ohne Datenbankzugriff).
+     * Gelesen wird unter der Schreibsperre: ein index() davor ist im Katalog schon enthalten, eines danach wartet,
+     * so geht keine Änderung durch das Leeren verloren.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            List<QuizQuestion> all = catalog.listAll();
+            postings.clear();
+            documents.clear();
+            for (QuizQuestion question : all) {
+                add(question);
+            }
+            built = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Nimmt eine neue oder geänderte Frage auf; alte Einträge der Frage werden vorher entfernt
+     */
+    public void index(QuizQuestion question) {
+        if (question.id == null) return;
+        lock.writeLock().lock();
+        try {
+            remove(question.id);
+            add(question);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(List<QuizQuestion> questions) {
+        lock.writeLock().lock();
+        try {
+            for (QuizQuestion question : questions) {
+                if (question.id == null) continue;
+                remove(question.id);
+                add(question);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(ObjectId id) {
+        lock.writeLock().lock();
+        try {
+            remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Alle Suchbegriffe müssen vorkommen (als Wort oder Wortanfang); sortiert nach Relevanz, dann nach ID
+     */
+    public SearchResult search(String query, QuestionFilter filter, int offset, int limit) {
+        if (!built) {
+            buildOnce();
+        }
+        int pageSize = QuestionStore.clampPageSize(limit);
+        int start = Math.max(0, offset);
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new SearchResult(0, start, List.of());
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<ObjectId, Float> scores = null;
+            for (String term : terms) {
+                Map<ObjectId, Float> matches = match(term, filter, scores);
+                if (matches.isEmpty()) {
+                    return new SearchResult(0, start, List.of());
+                }
+                scores = matches;
+            }
+
+            List<Map.Entry<ObjectId, Float>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<ObjectId, Float>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+
+            int end = Math.min(ranked.size(), start + pageSize);
+            List<SearchHit> hits = new ArrayList<>(Math.max(0, end - start));
+            for (int i = start; i < end; i++) {
+                Map.Entry<ObjectId, Float> entry = ranked.get(i);
+                hits.add(new SearchHit(documents.get(entry.getKey()).summary, entry.getValue()));
+            }
+            return new SearchResult(ranked.size(), start, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Nur die erste von mehreren gleichzeitigen Suchen baut auf, die übrigen warten und finden den Index danach vor
+    private void buildOnce() {
+        buildLock.lock();
+        try {
+            if (!built) {
+                rebuild();
+            }
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * Treffer eines Suchbegriffs; mit previous werden nur dort schon enthaltene Fragen weitergeführt (UND-Verknüpfung)
+     */
+    private Map<ObjectId, Float> match(String term, QuestionFilter filter, Map<ObjectId, Float> previous) {
+        Map<ObjectId, Float> matches = new HashMap<>();
+        Map<String, Map<ObjectId, Float>> candidates = term.length() < MIN_PREFIX_LENGTH
+            ? exact(term)
+            : postings.subMap(term, true, term + Character.MAX_VALUE, false);
+
+        int expanded = 0;
+        for (Map.Entry<String, Map<ObjectId, Float>> entry : candidates.entrySet()) {
+            if (expanded++ >= maxPrefixTerms) break;
+            Map<ObjectId, Float> docs = entry.getValue();
+            float factor = entry.getKey().length() == term.length() ? 1f : PREFIX_FACTOR;
+            float idf = (float) Math.log(1 + (double) documents.size() / docs.size());
+
+            // Über die kleinere Seite iterieren
+            if (previous != null && previous.size() < docs.size()) {
+                for (Map.Entry<ObjectId, Float> prior : previous.entrySet()) {
+                    Float weight = docs.get(prior.getKey());
+                    if (weight != null) {
+                        matches.merge(prior.getKey(), prior.getValue() + weight * idf * factor, Math::max);
+                    }
+                }
+            } else {
+                for (Map.Entry<ObjectId, Float> doc : docs.entrySet()) {
+                    float base;
+                    if (previous != null) {
+                        Float prior = previous.get(doc.getKey());
+                        if (prior == null) continue;
+                        base = prior;
+                    } else {
+                        if (!documents.get(doc.getKey()).matches(filter)) continue;
+                        base = 0f;
+                    }
+                    matches.merge(doc.getKey(), base + doc.getValue() * idf * factor, Math::max);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private Map<String, Map<ObjectId, Float>> exact(String term) {
+        Map<ObjectId, Float> docs = postings.get(term);
+        return docs == null ? Map.of() : Map.of(term, docs);
+    }
+
+    // Nur unter writeLock aufrufen
+    private void add(QuizQuestion question) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, question.question, QUESTION_WEIGHT);
+        addFields(weights, question.answers, ANSWER_WEIGHT);
+        addFields(weights, question.leftItems, ANSWER_WEIGHT);
+        addFields(weights, question.rightItems, ANSWER_WEIGHT);
+        addField(weights, question.textAnswer, TEXT_ANSWER_WEIGHT);
+
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>()).put(question.id, entry.getValue());
+        }
+        documents.put(question.id, new IndexedQuestion(weights.keySet().toArray(String[]::new),
+            question.category, question.difficulty, question.questionType, QuestionSummary.of(question)));
+    }
+
+    // Nur unter writeLock aufrufen
+    private void remove(ObjectId id) {
+        IndexedQuestion indexed = documents.remove(id);
+        if (indexed == null) return;
+        for (String term : indexed.terms) {
+            Map<ObjectId, Float> docs = postings.get(term);
+            if (docs == null) continue;
+            docs.remove(id);
+            if (docs.isEmpty()) postings.remove(term);
+        }
+    }
+
+    private static void addFields(Map<String, Float> weights, List<String> values, float weight) {
+        if (values == null) return;
+        for (String value : values) {
+            addField(weights, value, weight);
+        }
+    }
+
+    private static void addField(Map<String, Float> weights, String value, float weight) {
+        for (String term : tokenize(value)) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+
+    /**
+     * Kleinschreibung, Umlaute und ß ausgeschrieben (ä → ae, ß → ss), sonstige Akzente entfernt, Stoppwörter weggelassen.
+     * So findet "strasse" auch "Straße" und "mueller" auch "Müller".
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+
+        String folded = fold(text);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = folded.substring(start, i);
+                if (!STOPWORDS.contains(token)) tokens.add(token);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static String fold(String text) {
+        String lower = text.toLowerCase(Locale.GERMAN);
+        StringBuilder sb = new StringBuilder(lower.length() + 8);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            switch (c) {
+                case 'ä' -> sb.append("ae");
+                case 'ö' -> sb.append("oe");
+                case 'ü' -> sb.append("ue");
+                case 'ß' -> sb.append("ss");
+                default -> sb.append(c);
+            }
+        }
+        String result = sb.toString();
+        // Akzente anderer Sprachen (é, ç, ...) entfernen, nur wenn überhaupt Nicht-ASCII vorkommt
+        for (int i = 0; i < result.length(); i++) {
+            if (result.charAt(i) > 127) {
+                return Normalizer.normalize(result, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+            }
+        }
+        return result;
+    }
+
+    private record IndexedQuestion(String[] terms, String category, String difficulty, String questionType, QuestionSummary summary) {
+        boolean matches(QuestionFilter filter) {
+            return (filter.category() == null || filter.category().equals(category))
+                && (filter.difficulty() == null || filter.difficulty().equals(difficulty))
+                && (filter.type() == null || filter.type().equals(questionType));
+        }
+    }
+
+    public record SearchHit(QuestionSummary question, float score) { }
+
+    public record SearchResult(int total, int offset, List<SearchHit> items) { }
+}
@@ -0,0 +1,154 @@
+package org.acme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.jboss.logging.Logger;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Zähler für Fragen, aufgeschlüsselt nach Fragetyp × Kategorie × Schwierigkeit.
+ * Wird nach dem Start im Hintergrund aufgebaut (aus dem Katalog oder per Aggregation)
+ * und danach von QuizService und dem Import fortgeschrieben.
+ */
+@ApplicationScoped
+public class QuestionStatistics {
+
+    private static final Logger LOG = Logger.getLogger(QuestionStatistics.class);
+
+    @Inject
+    QuestionStore repository;
+
+    @Inject
+    QuestionCatalog catalog;
+
+    private volatile Map<Facet, LongAdder> counts = new ConcurrentHashMap<>();
+    private volatile boolean initialized;
+
+    // Schreibzugriffe samt Zählerpflege teilen sich die Lesesperre, der Neuaufbau hält die Schreibsperre.
+    // So ist jede Änderung beim Zählen entweder ganz enthalten (Speicher, Katalog, Zähler) oder kommt erst danach,
+    // und nichts wird doppelt gezählt. Ein Lock statt synchronized, die Aggregation läuft auch auf virtuellen Threads
+    private final ReentrantReadWriteLock writes = new ReentrantReadWriteLock();
+
+    // Im Hintergrund statt im Startereignis, sobald der Katalog geladen ist (ohne Katalog per Aggregation).
+    // Bis dahin baut die erste Abfrage die Zähler selbst auf.
+    @Scheduled(every = "1s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void buildInBackground() {
+        if (initialized || (catalog.isEnabled() && !catalog.isLoaded())) return;
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            LOG.debugf("Statistiken noch nicht aufgebaut, neuer Versuch im nächsten Lauf: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Baut alle Zähler neu auf: aus dem geladenen Katalog ohne Datenbankzugriff, sonst mit einer einzigen Aggregation.
+     * Solange gezählt wird, warten Schreibzugriffe in {@link #tracked(Supplier)}.
+     */
+    public void rebuild() {
+        writes.writeLock().lock();
+        try {
+            counts = count();
+            initialized = true;
+        } finally {
+            writes.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Führt einen Schreibzugriff aus, der seine Änderung selbst mit recordCreated/recordDeleted/recordUpdated zählt.
+     * Speichern, Zählen und Veröffentlichen im Katalog gehören zusammen hinein; ein Neuaufbau läuft nie dazwischen.
+     */
+    public <T> T tracked(Supplier<T> write) {
+        writes.readLock().lock();
+        try {
+            return write.get();
+        } finally {
+            writes.readLock().unlock();
+        }
+    }
+
+    private Map<Facet, LongAdder> count() {
+        Map<Facet, LongAdder> fresh = new ConcurrentHashMap<>();
+        if (catalog.isLoaded()) {
+            for (QuizQuestion question : catalog.listAll()) {
+                fresh.computeIfAbsent(Facet.of(question), f -> new LongAdder()).increment();
+            }
+        } else {
+            repository.countFacets().forEach((facet, count) ->
+                fresh.computeIfAbsent(facet, f -> new LongAdder()).add(count));
+        }
+        return fresh;
+    }
+
+    public void recordCreated(QuizQuestion question) {
+        adjust(Facet.of(question), 1);
+    }
+
+    public void recordDeleted(QuizQuestion question) {
+        adjust(Facet.of(question), -1);
+    }
+
+    public void recordUpdated(Facet before, QuizQuestion after) {
+        Facet now = Facet.of(after);
+        if (!before.equals(now)) {
+            adjust(before, -1);
+            adjust(now, 1);
+        }
+    }
+
+    private void adjust(Facet facet, int delta) {
+        counts.computeIfAbsent(facet, f -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Liefert eine Momentaufnahme; die Kosten hängen nur von der Anzahl der Facetten ab, nicht von der Anzahl der Fragen
+     */
+    public QuizService.QuizStatistics snapshot() {
+        if (!initialized) {
+            rebuild();
+        }
+
+        long total = 0;
+        Map<String, Long> byType = new TreeMap<>();
+        Map<String, Long> byCategory = new TreeMap<>();
+        Map<String, Long> byDifficulty = new TreeMap<>();
+        List<FacetCount> facets = new ArrayList<>();
+
+        for (Map.Entry<Facet, LongAdder> entry : counts.entrySet()) {
+            long count = entry.getValue().sum();
+            if (count <= 0) continue;
+
+            Facet facet = entry.getKey();
+            total += count;
+            byType.merge(String.valueOf(facet.questionType()), count, Long::sum);
+            byCategory.merge(String.valueOf(facet.category()), count, Long::sum);
+            byDifficulty.merge(String.valueOf(facet.difficulty()), count, Long::sum);
+            facets.add(new FacetCount(facet.questionType(), facet.category(), facet.difficulty(), count));
+        }
+
+        return new QuizService.QuizStatistics(total,
+            byType.getOrDefault("multiple-choice", 0L),
+            byType.getOrDefault("text", 0L),
+            byType.getOrDefault("matching", 0L),
+            byType, byCategory, byDifficulty, facets);
+    }
+
+    public record Facet(String questionType, String category, String difficulty) {
+        static Facet of(QuizQuestion question) {
+            return new Facet(question.questionType, question.category, question.difficulty);
+        }
+    }
+
+    public record FacetCount(String questionType, String category, String difficulty, long count) { }
+}
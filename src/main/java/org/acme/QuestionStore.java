@@ -0,0 +1,122 @@
+package org.acme;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Speicher-Abstraktion für Fragen. Standard ist MongoDB ({@link MongoQuestionStore}),
+ * mit app.storage.type=memory wird {@link InMemoryQuestionStore} verwendet.
+ */
+public interface QuestionStore {
+
+    int DEFAULT_PAGE_SIZE = 50;
+    int MAX_PAGE_SIZE = 500;
+
+    Set<String> PROJECTABLE_FIELDS = Set.of(
+        "question", "questionType", "answers", "correctAnswerIndices", "textAnswer",
+        "leftItems", "rightItems", "correctMappings", "category", "difficulty");
+
+    List<QuizQuestion> listAll();
+
+    QuizQuestion findById(ObjectId id);
+
+    default Optional<QuizQuestion> findByIdOptional(ObjectId id) {
+        return Optional.ofNullable(findById(id));
+    }
+
+    List<QuizQuestion> findByIds(Collection<ObjectId> ids);
+
+    /**
+     * Keyset-Pagination über _id: liefert höchstens limit Fragen mit _id > after
+     */
+    QuestionPage<QuizQuestion> findPage(QuestionFilter filter, ObjectId after, int limit);
+
+    default QuestionPage<QuizQuestion> findByCategory(String category, ObjectId after, int limit) {
+        return findPage(new QuestionFilter(null, category, null), after, limit);
+    }
+
+    default QuestionPage<QuizQuestion> findByDifficulty(String difficulty, ObjectId after, int limit) {
+        return findPage(new QuestionFilter(null, null, difficulty), after, limit);
+    }
+
+    default QuestionPage<QuizQuestion> findByCategoryAndDifficulty(String category, String difficulty, ObjectId after, int limit) {
+        return findPage(new QuestionFilter(null, category, difficulty), after, limit);
+    }
+
+    QuestionPage<QuestionSummary> findSummaries(QuestionFilter filter, ObjectId after, int limit);
+
+    /**
+     * Seite mit nur den angefragten Feldern (plus id)
+     */
+    QuestionPage<Map<String, Object>> findProjected(QuestionFilter filter, Collection<String> fields, ObjectId after, int limit);
+
+    List<Map<String, Object>> listProjected(Collection<String> fields);
+
+    Map<String, Object> findProjectedById(ObjectId id, Collection<String> fields);
+
+    /**
+     * Zufällige Frage, ohne alle Treffer zu laden; null, wenn nichts passt
+     */
+    QuizQuestion sampleOne(QuestionFilter filter);
+
+    /**
+     * Bis zu size verschiedene, zufällig gezogene IDs
+     */
+    List<ObjectId> sampleIds(QuestionFilter filter, int size);
+
+    Map<QuestionStatistics.Facet, Long> countFacets();
+
+    /**
+     * Revision des Bestands: wächst mit jedem Schreibzugriff, egal von welcher Instanz.
+     * Ein einzelnes kleines Dokument, billig genug für den regelmäßigen Abgleich.
+     */
+    long revision();
+
+    /**
+     * Ob zwischen den Revisionen since und until eine andere Instanz geschrieben hat, also nicht nur diese.
+     * Im Zweifel true, etwa wenn ein eigener Schreibzugriff seine Revision noch nicht kennt.
+     */
+    boolean changedElsewhere(long since, long until);
+
+    /**
+     * Läuft über alle passenden Fragen, ohne die Ergebnisliste aufzubauen
+     */
+    void forEachMatching(QuestionFilter filter, Consumer<QuizQuestion> action);
+
+    void persist(QuizQuestion question);
+
+    /**
+     * Setzt die angegebenen Felder (null entfernt das Feld) und erhöht die Version, in einem einzigen Schreibzugriff,
+     * nur wenn die gespeicherte Version expectedVersion ist.
+     * Ergebnis ist der Stand vor der Änderung, null bei unbekannter ID oder abweichender Version.
+     */
+    QuizQuestion updateFields(ObjectId id, long expectedVersion, Map<String, Object> fields);
+
+    /**
+     * Löscht in einem einzigen Zugriff, nur bei passender Version.
+     * Ergebnis ist der gelöschte Stand, null bei unbekannter ID oder abweichender Version.
+     */
+    QuizQuestion deleteById(ObjectId id, long expectedVersion);
+
+    /**
+     * Fügt alle Fragen ein; Ergebnis sind die Fehlermeldungen je Listenindex
+     */
+    Map<Integer, String> insertMany(List<QuizQuestion> questions);
+
+    /**
+     * Überschreibt die Inhaltsfelder oder legt Fragen anhand ihrer ID an und erhöht dabei die Version (neu: 1);
+     * Ergebnis sind die Fehlermeldungen je Listenindex
+     */
+    Map<Integer, String> upsertMany(List<QuizQuestion> questions);
+
+    static int clampPageSize(int limit) {
+        if (limit <= 0) return DEFAULT_PAGE_SIZE;
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,39 @@
+package org.acme;
+
+import org.bson.Document;
+
+/**
+ * Schlanke Listenansicht einer Frage ohne Antworten und Lösungen
+ */
+public record QuestionSummary(String id, String question, String questionType, String category, String difficulty, int answerCount,
+                              long version) {
+
+    static final int MAX_QUESTION_LENGTH = 120;
+
+    static QuestionSummary from(Document document) {
+        // Mongo liefert ein Zeichen mehr, damit hier erkennbar ist, ob gekürzt wurde
+        Number version = document.get("version", Number.class);
+        return new QuestionSummary(
+            document.getObjectId("_id").toHexString(),
+            truncate(document.getString("question")),
+            document.getString("questionType"),
+            document.getString("category"),
+            document.getString("difficulty"),
+            document.get("answerCount", Number.class).intValue(),
+            version == null ? 0 : version.longValue());
+    }
+
+    static QuestionSummary of(QuizQuestion question) {
+        int answerCount = question.answers != null ? question.answers.size()
+            : question.leftItems != null ? question.leftItems.size() : 0;
+        return new QuestionSummary(question.id.toHexString(), truncate(question.question),
+            question.questionType, question.category, question.difficulty, answerCount, question.currentVersion());
+    }
+
+    private static String truncate(String question) {
+        if (question != null && question.length() > MAX_QUESTION_LENGTH) {
+            return question.substring(0, MAX_QUESTION_LENGTH) + "…";
+        }
+        return question;
+    }
+}
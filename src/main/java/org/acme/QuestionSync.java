@@ -0,0 +1,106 @@
+package org.acme;
+
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.jboss.logging.Logger;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Übernimmt Änderungen, die eine andere Instanz an der gemeinsamen Datenbank gemacht hat.
+ * Jeder Schreibzugriff zählt einen Revisionszähler in der Datenbank hoch. Alle app.catalog.sync-interval wird nur dieses
+ * eine Dokument gelesen; ist die Revision seit dem Laden des Katalogs auch durch andere Instanzen gewachsen, wird der
+ * Katalog neu geladen, und für jede geänderte oder gelöschte Frage laufen
+ * dieselben Folgeschritte wie bei einer eigenen Änderung: Suchindex, JSON-Cache, Antwortschlüssel, ETags, Änderungsstrom.
+ * Ohne geladenen Katalog lässt sich nicht sagen, was sich geändert hat; dann wird alles Abgeleitete verworfen.
+ */
+@ApplicationScoped
+public class QuestionSync {
+
+    private static final Logger LOG = Logger.getLogger(QuestionSync.class);
+
+    @Inject
+    QuestionStore repository;
+
+    @Inject
+    QuestionCatalog catalog;
+
+    @Inject
+    QuestionSearchIndex searchIndex;
+
+    @Inject
+    QuestionStatistics statistics;
+
+    @Inject
+    GradingService gradingService;
+
+    @Inject
+    QuestionJsonCache jsonCache;
+
+    @Inject
+    QuestionVersions versions;
+
+    @Inject
+    QuestionChanges changes;
+
+    // Zuletzt gesehene Revision der Datenbank, nur für den Fall ohne Katalog
+    private long lastSeen = -1;
+
+    @Scheduled(every = "${app.catalog.sync-interval:15s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void sync() {
+        long stored;
+        try {
+            stored = repository.revision();
+        } catch (RuntimeException e) {
+            LOG.debugf("Abgleich übersprungen, Speicher nicht erreichbar: %s", e.getMessage());
+            return;
+        }
+
+        if (catalog.isLoaded()) {
+            lastSeen = stored;
+            long loaded = catalog.revision();
+            if (loaded < 0 || repository.changedElsewhere(loaded, stored)) {
+                catalog.reload(this::changed);
+                statistics.rebuild();
+            } else {
+                // Nur eigene Änderungen, die ihre Folgeschritte schon selbst ausgelöst haben
+                catalog.advance(stored);
+            }
+            return;
+        }
+
+        if (lastSeen >= 0 && repository.changedElsewhere(lastSeen, stored)) {
+            LOG.info("Fragenbestand von außen geändert, Suchindex, Statistiken und ETags werden neu aufgebaut");
+            gradingService.invalidateAll();
+            searchIndex.rebuild();
+            statistics.rebuild();
+            versions.invalidateAll();
+            changes.reset();
+        }
+        lastSeen = stored;
+    }
+
+    // Läuft unter der Katalogsperre, wie die Folgeschritte in QuizService
+    private void changed(List<QuizQuestion> upserted, List<ObjectId> deleted) {
+        LOG.debugf("Abgleich: %d geänderte, %d gelöschte Fragen", upserted.size(), deleted.size());
+        searchIndex.index(upserted);
+        for (QuizQuestion question : upserted) {
+            gradingService.invalidate(question.id);
+            jsonCache.invalidate(question.id);
+            versions.bump(question.id);
+        }
+        for (ObjectId id : deleted) {
+            searchIndex.delete(id);
+            gradingService.invalidate(id);
+            jsonCache.invalidate(id);
+            versions.bump(id);
+        }
+        changes.upserted(upserted);
+        for (ObjectId id : deleted) {
+            changes.deleted(id);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.acme;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.types.ObjectId;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.EntityTag;
+
+/**
+ * ETag und Last-Modified für den Fragenkatalog und einzelne Fragen.
+ * Die Tags kommen aus gespeicherten Werten (Version der Frage, Prüfsumme des Katalogs bzw. Revision der Datenbank)
+ * und sind damit auf jeder Instanz und über Neustarts hinweg gleich. Last-Modified liegt nur im Speicher: eine Instanz
+ * kennt höchstens ihren Start als ältesten Zeitpunkt und meldet im Zweifel eine Änderung, nie eine zu alte.
+ */
+@ApplicationScoped
+public class QuestionVersions {
+
+    @Inject
+    QuestionCatalog catalog;
+
+    @Inject
+    QuestionStore repository;
+
+    // Last-Modified für Fragen ohne eigenen Stempel: Start bzw. letztes invalidateAll
+    private volatile Instant baseline = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private volatile Instant collectionModified = baseline;
+    private final Map<ObjectId, Instant> documents = new ConcurrentHashMap<>();
+
+    /**
+     * Eine Frage wurde angelegt, geändert oder gelöscht
+     */
+    public void bump(ObjectId id) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        if (id != null) {
+            documents.put(id, now);
+        }
+        collectionModified = now;
+    }
+
+    /**
+     * Änderungen unbekannten Umfangs, etwa durch eine andere Instanz: alle bisherigen Zeitstempel werden ungültig
+     */
+    public void invalidateAll() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        baseline = now;
+        documents.clear();
+        collectionModified = now;
+    }
+
+    /**
+     * Aus der Prüfsumme des Katalogs; ohne geladenen Katalog aus dem Revisionszähler der Datenbank
+     */
+    public EntityTag collectionTag() {
+        Long digest = catalog.digest();
+        if (digest != null) {
+            return new EntityTag("c" + Long.toHexString(digest));
+        }
+        return new EntityTag("r" + repository.revision());
+    }
+
+    public Date collectionLastModified() {
+        return Date.from(collectionModified);
+    }
+
+    public EntityTag documentTag(QuizQuestion question) {
+        return new EntityTag(question.id.toHexString() + "-" + question.currentVersion());
+    }
+
+    public Date documentLastModified(ObjectId id) {
+        return Date.from(documents.getOrDefault(id, baseline));
+    }
+}
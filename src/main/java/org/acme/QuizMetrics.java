@@ -0,0 +1,164 @@
+package org.acme;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Zentrale Metriken für Authentifizierung und Speicherzugriffe, abrufbar unter /q/metrics.
+ * Zähler und Timer werden einmal je Tag-Kombination angelegt und wiederverwendet, statt sie bei jedem Aufruf
+ * in der Registry nachzuschlagen.
+ * Speicherzugriffe über app.slow-query.threshold landen zusätzlich als Warnung im Log.
+ */
+@ApplicationScoped
+public class QuizMetrics {
+
+    static final String AUTH_OUTCOMES = "quiz.auth.outcomes";
+    static final String STORE_CALLS = "quiz.store.calls";
+    static final String STORE_DOCUMENTS = "quiz.store.documents.materialized";
+
+    private static final Logger LOG = Logger.getLogger(QuizMetrics.class);
+
+    // Die Dauer enthält hier die Verarbeitung jedes Dokuments (z. B. den Export an den Client), nicht nur die Abfrage
+    private static final Set<String> STREAMING_OPERATIONS = Set.of("forEachMatching", "forEachTotal");
+
+    @Inject
+    MeterRegistry registry;
+
+    // 0 schaltet das Log ab
+    @ConfigProperty(name = "app.slow-query.threshold", defaultValue = "200ms")
+    Duration slowQueryThreshold;
+
+    private long slowQueryNanos;
+
+    private final Map<AuthOutcome, Counter> authCounters = new EnumMap<>(AuthOutcome.class);
+    private final Map<String, StoreMeters> storeMeters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        slowQueryNanos = slowQueryThreshold.isZero() ? Long.MAX_VALUE : slowQueryThreshold.toNanos();
+        for (AuthOutcome outcome : AuthOutcome.values()) {
+            authCounters.put(outcome, Counter.builder(AUTH_OUTCOMES)
+                .description("Ergebnisse der API-Key-Prüfung")
+                .tag("outcome", outcome.tag)
+                .tag("status", outcome.status)
+                .register(registry));
+        }
+    }
+
+    public void recordAuth(AuthOutcome outcome) {
+        authCounters.get(outcome).increment();
+    }
+
+    /**
+     * Misst einen Speicherzugriff; ohne Rückgabe gelesener Dokumente (z. B. Schreibzugriffe)
+     */
+    public <T> T time(String store, String operation, Supplier<T> call) {
+        StoreMeters meters = meters(store, operation);
+        long started = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            record(meters, store, operation, System.nanoTime() - started);
+        }
+    }
+
+    public void time(String store, String operation, Runnable call) {
+        StoreMeters meters = meters(store, operation);
+        long started = System.nanoTime();
+        try {
+            call.run();
+        } finally {
+            record(meters, store, operation, System.nanoTime() - started);
+        }
+    }
+
+    private void record(StoreMeters meters, String store, String operation, long nanos) {
+        meters.timer.record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos >= slowQueryNanos && !STREAMING_OPERATIONS.contains(operation)) {
+            LOG.warnf("Langsamer Speicherzugriff %s.%s: %d ms", store, operation, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+
+    /**
+     * Zählt, wie viele Dokumente ein Speicherzugriff aus der Datenbank in Objekte umgewandelt hat
+     */
+    public void materialized(String store, String operation, long documents) {
+        if (documents > 0) {
+            meters(store, operation).documents.increment(documents);
+        }
+    }
+
+    private StoreMeters meters(String store, String operation) {
+        return storeMeters.computeIfAbsent(store + '.' + operation, key -> new StoreMeters(
+            Timer.builder(STORE_CALLS)
+                .description("Dauer der Speicherzugriffe")
+                .tag("store", store)
+                .tag("operation", operation)
+                .register(registry),
+            Counter.builder(STORE_DOCUMENTS)
+                .description("Aus der Datenbank gelesene Dokumente")
+                .tag("store", store)
+                .tag("operation", operation)
+                .register(registry)));
+    }
+
+    /**
+     * Latenz-Histogramme für alle HTTP-Endpunkte (Tag uri = Pfad-Template) und alle Speicherzugriffe.
+     * Statisch, weil die Registry den Filter schon beim Anlegen braucht.
+     */
+    @Produces
+    @Singleton
+    static MeterFilter latencyHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getName().startsWith("http.server.requests") || id.getName().equals(STORE_CALLS)) {
+                    return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .build()
+                        .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+
+    private record StoreMeters(Timer timer, Counter documents) { }
+
+    public enum AuthOutcome {
+        MISSING_KEY("missing_key", "401"),
+        INVALID_KEY("invalid_key", "401"),
+        FORBIDDEN("forbidden", "403"),
+        RATE_LIMITED("rate_limited", "429"),
+        MASTER_KEY("master_key", "200"),
+        GRANTED("granted", "200");
+
+        final String tag;
+        final String status;
+
+        AuthOutcome(String tag, String status) {
+            this.tag = tag;
+            this.status = status;
+        }
+    }
+}
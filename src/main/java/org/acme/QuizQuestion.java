@@ -1,6 +1,11 @@
 package org.acme;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -27,6 +32,9 @@ public class QuizQuestion extends PanacheMongoEntity {
     
     public String difficulty;
 
+    // Wird bei jeder Änderung erhöht; fehlt bei Altbeständen und zählt dann als 0
+    public Long version;
+
     // Hilfklasse für Zuordnungen
     public static class CategoryMapping {
         public Integer categoryIndex;
@@ -38,6 +46,19 @@ public class QuizQuestion extends PanacheMongoEntity {
             this.categoryIndex = categoryIndex;
             this.itemIndices = itemIndices;
         }
+
+        // Wertvergleich, damit PATCH unveränderte Zuordnungen nicht erneut schreibt
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof CategoryMapping mapping
+                && Objects.equals(categoryIndex, mapping.categoryIndex)
+                && Objects.equals(itemIndices, mapping.itemIndices);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(categoryIndex, itemIndices);
+        }
     }
 
     // Konstruktoren
@@ -135,6 +156,85 @@ public class QuizQuestion extends PanacheMongoEntity {
         return true;
     }
     
+    /**
+     * Inhaltsfelder unter ihrem Dokumentnamen, null für nicht gesetzte Felder
+     */
+    public Map<String, Object> contentFields() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("question", question);
+        fields.put("questionType", questionType);
+        fields.put("answers", answers);
+        fields.put("correctAnswerIndices", correctAnswerIndices);
+        fields.put("textAnswer", textAnswer);
+        fields.put("leftItems", leftItems);
+        fields.put("rightItems", rightItems);
+        fields.put("correctMappings", correctMappings);
+        fields.put("category", category);
+        fields.put("difficulty", difficulty);
+        return fields;
+    }
+
+    /**
+     * Gegenstück zu {@link #contentFields()}: setzt ein Inhaltsfeld über seinen Dokumentnamen
+     */
+    @SuppressWarnings("unchecked")
+    public void applyField(String field, Object value) {
+        switch (field) {
+            case "question" -> question = (String) value;
+            case "questionType" -> questionType = (String) value;
+            case "answers" -> answers = (List<String>) value;
+            case "correctAnswerIndices" -> correctAnswerIndices = (List<Integer>) value;
+            case "textAnswer" -> textAnswer = (String) value;
+            case "leftItems" -> leftItems = (List<String>) value;
+            case "rightItems" -> rightItems = (List<String>) value;
+            case "correctMappings" -> correctMappings = (List<CategoryMapping>) value;
+            case "category" -> category = (String) value;
+            case "difficulty" -> difficulty = (String) value;
+            default -> throw new IllegalArgumentException("Unbekanntes Feld " + field);
+        }
+    }
+
+    /**
+     * Die angegebenen Felder mit der ID als Hex-String; wie bei einer Mongo-Projektion fehlen nicht gesetzte Felder ganz
+     */
+    public Map<String, Object> project(Collection<String> fields) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", id.toHexString());
+        Map<String, Object> content = contentFields();
+        for (String field : fields) {
+            Object value = content.get(field);
+            if (value != null) item.put(field, value);
+        }
+        return item;
+    }
+
+    /**
+     * Tiefe Kopie mit ID und Version; Listen werden kopiert, damit Änderungen an der Kopie das Original nicht berühren
+     */
+    public QuizQuestion copy() {
+        List<CategoryMapping> mappings = null;
+        if (correctMappings != null) {
+            mappings = new ArrayList<>(correctMappings.size());
+            for (CategoryMapping mapping : correctMappings) {
+                mappings.add(new CategoryMapping(mapping.categoryIndex,
+                    mapping.itemIndices == null ? null : new ArrayList<>(mapping.itemIndices)));
+            }
+        }
+        QuizQuestion copy = new QuizQuestion(question, questionType, copyList(answers), copyList(correctAnswerIndices), textAnswer,
+            copyList(leftItems), copyList(rightItems), mappings, category, difficulty);
+        copy.id = id;
+        copy.version = version;
+        return copy;
+    }
+
+    private static <T> List<T> copyList(List<T> list) {
+        return list == null ? null : new ArrayList<>(list);
+    }
+
+    public long currentVersion() {
+        return version == null ? 0 : version;
+    }
+
     // Normalisiere Daten (setze nicht verwendete Felder auf null)
     public void normalizeData() {
         switch (questionType) {
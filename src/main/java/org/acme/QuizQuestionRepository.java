@@ -1,6 +1,38 @@
 package org.acme;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
 
 import io.quarkus.mongodb.panache.PanacheMongoRepository;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -8,15 +40,313 @@ import jakarta.enterprise.context.ApplicationScoped;
 @ApplicationScoped
 public class QuizQuestionRepository implements PanacheMongoRepository<QuizQuestion> {
 
-    public List<QuizQuestion> findByCategory(String category) {
-        return list("category", category);
+    private static final int CURSOR_BATCH_SIZE = 500;
+
+    private static final Document ID_ASCENDING = new Document("_id", 1);
+
+    // Revisionszähler der Fragen: ein Dokument, das jeder Schreibzugriff hochzählt
+    private static final String REVISIONS = "revisions";
+    private static final String REVISION_ID = "quizquestions";
+
+    /**
+     * Je Kombination aus Kategorie, Schwierigkeit und Fragetyp ein Index, der genau diese Felder vor _id hat:
+     * Die Keyset-Pagination (Gleichheit auf den Feldern, _id > after, sortiert nach _id) läuft damit ohne Sortierung
+     * im Speicher. Ein längerer Index mit weiteren Feldern vor _id würde zwar filtern, aber nicht nach _id sortiert liefern.
+     * Ohne Filter genügt der _id-Index.
+     */
+    static final List<IndexModel> INDEXES = List.of(
+        new IndexModel(Indexes.ascending("category", "difficulty", "questionType", "_id"),
+            new IndexOptions().name("category_difficulty_questionType")),
+        new IndexModel(Indexes.ascending("category", "difficulty", "_id"),
+            new IndexOptions().name("category_difficulty")),
+        new IndexModel(Indexes.ascending("difficulty", "questionType", "_id"),
+            new IndexOptions().name("difficulty_questionType")),
+        new IndexModel(Indexes.ascending("questionType", "category", "_id"),
+            new IndexOptions().name("questionType_category")),
+        new IndexModel(Indexes.ascending("category", "_id"),
+            new IndexOptions().name("category")),
+        new IndexModel(Indexes.ascending("difficulty", "_id"),
+            new IndexOptions().name("difficulty")),
+        new IndexModel(Indexes.ascending("questionType", "_id"),
+            new IndexOptions().name("questionType")));
+
+    private static final Document SUMMARY_PROJECTION = new Document("question",
+            new Document("$substrCP", List.of(new Document("$ifNull", List.of("$question", "")), 0, QuestionSummary.MAX_QUESTION_LENGTH + 1)))
+        .append("questionType", 1)
+        .append("category", 1)
+        .append("difficulty", 1)
+        .append("version", 1)
+        .append("answerCount", new Document("$size",
+            new Document("$ifNull", List.of("$answers", new Document("$ifNull", List.of("$leftItems", List.of()))))));
+
+    public List<QuizQuestion> findByIds(Collection<ObjectId> ids) {
+        return list(new Document("_id", new Document("$in", List.copyOf(ids))));
+    }
+
+    /**
+     * Keyset-Pagination über _id: liefert höchstens limit Fragen mit _id > after
+     */
+    public QuestionPage<QuizQuestion> findPage(QuestionFilter filter, ObjectId after, int limit) {
+        int pageSize = QuestionStore.clampPageSize(limit);
+
+        // Eine Frage mehr laden, um zu wissen, ob es eine weitere Seite gibt
+        List<QuizQuestion> items = find(keyset(filter, after), ID_ASCENDING).range(0, pageSize).list();
+        if (items.size() <= pageSize) {
+            return new QuestionPage<>(items, null);
+        }
+
+        List<QuizQuestion> page = items.subList(0, pageSize);
+        return new QuestionPage<>(page, page.get(pageSize - 1).id.toHexString());
+    }
+
+    /**
+     * Listenansicht per Aggregation: Fragetext wird in Mongo gekürzt, Antworten werden nur gezählt
+     */
+    public QuestionPage<QuestionSummary> findSummaries(QuestionFilter filter, ObjectId after, int limit) {
+        int pageSize = QuestionStore.clampPageSize(limit);
+
+        List<Bson> pipeline = new ArrayList<>(4);
+        pipeline.add(Aggregates.match(keyset(filter, after)));
+        pipeline.add(Aggregates.sort(ID_ASCENDING));
+        pipeline.add(Aggregates.limit(pageSize + 1));
+        pipeline.add(Aggregates.project(SUMMARY_PROJECTION));
+
+        List<QuestionSummary> items = new ArrayList<>(pageSize + 1);
+        for (Document document : mongoCollection().aggregate(pipeline, Document.class)) {
+            items.add(QuestionSummary.from(document));
+        }
+        if (items.size() <= pageSize) {
+            return new QuestionPage<>(items, null);
+        }
+        List<QuestionSummary> page = items.subList(0, pageSize);
+        return new QuestionPage<>(page, page.get(pageSize - 1).id());
+    }
+
+    /**
+     * Seite mit nur den angefragten Feldern (plus id)
+     */
+    public QuestionPage<Map<String, Object>> findProjected(QuestionFilter filter, Collection<String> fields, ObjectId after, int limit) {
+        int pageSize = QuestionStore.clampPageSize(limit);
+
+        List<Map<String, Object>> items = new ArrayList<>(pageSize + 1);
+        List<ObjectId> ids = new ArrayList<>(pageSize + 1);
+        for (Document document : mongoCollection().find(keyset(filter, after), Document.class)
+                .projection(Projections.include(List.copyOf(fields)))
+                .sort(ID_ASCENDING)
+                .limit(pageSize + 1)) {
+            ids.add(document.getObjectId("_id"));
+            items.add(withHexId(document));
+        }
+        if (items.size() <= pageSize) {
+            return new QuestionPage<>(items, null);
+        }
+        return new QuestionPage<>(items.subList(0, pageSize), ids.get(pageSize - 1).toHexString());
+    }
+
+    public List<Map<String, Object>> listProjected(Collection<String> fields) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Document document : mongoCollection().find(new Document(), Document.class)
+                .projection(Projections.include(List.copyOf(fields)))) {
+            items.add(withHexId(document));
+        }
+        return items;
+    }
+
+    public Map<String, Object> findProjectedById(ObjectId id, Collection<String> fields) {
+        Document document = mongoCollection().find(new Document("_id", id), Document.class)
+            .projection(Projections.include(List.copyOf(fields)))
+            .first();
+        return document == null ? null : withHexId(document);
+    }
+
+    /**
+     * Zufällige Frage per $sample, ohne alle Treffer zu laden
+     */
+    public QuizQuestion sampleOne(QuestionFilter filter) {
+        List<Bson> pipeline = new ArrayList<>(2);
+        if (!filter.isEmpty()) {
+            pipeline.add(Aggregates.match(filter.toDocument()));
+        }
+        pipeline.add(Aggregates.sample(1));
+        return mongoCollection().aggregate(pipeline).first();
+    }
+
+    /**
+     * Zieht per $sample nur IDs. $sample kann Dokumente doppelt liefern; dann wird mit den noch
+     * nicht gezogenen nachgezogen, bis size erreicht ist oder keine passende Frage mehr übrig ist.
+     */
+    public List<ObjectId> sampleIds(QuestionFilter filter, int size) {
+        Set<ObjectId> ids = new LinkedHashSet<>(size * 2);
+        while (ids.size() < size) {
+            Document match = filter.toDocument();
+            if (!ids.isEmpty()) {
+                match.append("_id", new Document("$nin", List.copyOf(ids)));
+            }
+            List<Bson> pipeline = new ArrayList<>(3);
+            if (!match.isEmpty()) {
+                pipeline.add(Aggregates.match(match));
+            }
+            pipeline.add(Aggregates.sample(size - ids.size()));
+            pipeline.add(Aggregates.project(Projections.include("_id")));
+
+            int before = ids.size();
+            for (Document row : mongoCollection().aggregate(pipeline, Document.class)) {
+                ids.add(row.getObjectId("_id"));
+            }
+            // Nichts Neues mehr: alle passenden Fragen sind gezogen
+            if (ids.size() == before) break;
+        }
+        return List.copyOf(ids);
+    }
+
+    /**
+     * Anzahl Fragen je Fragetyp × Kategorie × Schwierigkeit mit einer einzigen Aggregation
+     */
+    public Map<QuestionStatistics.Facet, Long> countFacets() {
+        Document groupKey = new Document("questionType", "$questionType")
+            .append("category", "$category")
+            .append("difficulty", "$difficulty");
+
+        Map<QuestionStatistics.Facet, Long> counts = new HashMap<>();
+        for (Document row : mongoCollection().aggregate(List.of(
+                Aggregates.group(groupKey, Accumulators.sum("count", 1))), Document.class)) {
+            Document id = row.get("_id", Document.class);
+            QuestionStatistics.Facet facet = new QuestionStatistics.Facet(
+                id.getString("questionType"), id.getString("category"), id.getString("difficulty"));
+            counts.put(facet, row.get("count", Number.class).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Stand des Revisionszählers; ein Zugriff über _id auf ein einzelnes Dokument
+     */
+    public long revision() {
+        Document row = revisions().find(Filters.eq("_id", REVISION_ID)).first();
+        return row == null ? 0 : row.get("value", Number.class).longValue();
+    }
+
+    /**
+     * Zählt den Revisionszähler hoch (legt ihn bei Bedarf an) und liefert den neuen Stand
+     */
+    public long bumpRevision() {
+        Document row = revisions().findOneAndUpdate(Filters.eq("_id", REVISION_ID), Updates.inc("value", 1L),
+            new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+        return row.get("value", Number.class).longValue();
+    }
+
+    private MongoCollection<Document> revisions() {
+        return mongoDatabase().getCollection(REVISIONS);
+    }
+
+    public void forEachMatching(QuestionFilter filter, Consumer<QuizQuestion> action) {
+        try (MongoCursor<QuizQuestion> cursor = mongoCollection().find(filter.toDocument())
+                .batchSize(CURSOR_BATCH_SIZE)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                action.accept(cursor.next());
+            }
+        }
+    }
+
+    /**
+     * Ein ungeordnetes insertMany; Fehler einzelner Dokumente brechen den Rest nicht ab
+     */
+    public Map<Integer, String> insertMany(List<QuizQuestion> questions) {
+        try {
+            mongoCollection().insertMany(questions, new InsertManyOptions().ordered(false));
+            return Map.of();
+        } catch (MongoBulkWriteException e) {
+            return writeErrors(e);
+        }
+    }
+
+    /**
+     * Ein ungeordneter bulkWrite mit updateOne/upsert je Frage: Inhalt per $set/$unset, Version per $inc.
+     * Ein Ersetzen des ganzen Dokuments würde die Version auf den Wert aus dem Import zurücksetzen
+     * und ältere Bearbeitungsstände wieder schreiben lassen.
+     */
+    public Map<Integer, String> upsertMany(List<QuizQuestion> questions) {
+        List<UpdateOneModel<QuizQuestion>> writes = new ArrayList<>(questions.size());
+        for (QuizQuestion question : questions) {
+            writes.add(new UpdateOneModel<>(Filters.eq("_id", question.id), contentUpdate(question.contentFields()),
+                new UpdateOptions().upsert(true)));
+        }
+        try {
+            mongoCollection().bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            return Map.of();
+        } catch (MongoBulkWriteException e) {
+            return writeErrors(e);
+        }
+    }
+
+    /**
+     * Ein findOneAndUpdate mit $set/$unset und $inc auf die Version; liefert den Stand vorher
+     */
+    public QuizQuestion updateFields(ObjectId id, long expectedVersion, Map<String, Object> fields) {
+        return mongoCollection().findOneAndUpdate(versioned(id, expectedVersion), contentUpdate(fields),
+            new FindOneAndUpdateOptions().returnDocument(ReturnDocument.BEFORE));
+    }
+
+    /**
+     * Ein findOneAndDelete, damit Statistik und Katalog den gelöschten Stand ohne vorheriges Lesen kennen
+     */
+    public QuizQuestion deleteById(ObjectId id, long expectedVersion) {
+        return mongoCollection().findOneAndDelete(versioned(id, expectedVersion));
+    }
+
+    // $set/$unset je Feld (null entfernt es) und $inc auf die Version; beim Upsert entsteht so Version 1
+    private static Bson contentUpdate(Map<String, Object> fields) {
+        List<Bson> updates = new ArrayList<>(fields.size() + 1);
+        fields.forEach((field, value) -> updates.add(value == null ? Updates.unset(field) : Updates.set(field, value)));
+        updates.add(Updates.inc("version", 1L));
+        return Updates.combine(updates);
+    }
+
+    // Version 0 trifft auch Dokumente, die noch kein Versionsfeld haben
+    private static Bson versioned(ObjectId id, long expectedVersion) {
+        Bson version = expectedVersion == 0
+            ? Filters.in("version", Arrays.asList(0L, null))
+            : Filters.eq("version", expectedVersion);
+        return Filters.and(Filters.eq("_id", id), version);
+    }
+
+    /**
+     * Abfragepläne für einen Filter: als Keyset-Seite (findPage, findSummaries, findProjected)
+     * und, wenn er etwas einschränkt, als Cursor bzw. $match (forEachMatching, sampleOne, sampleIds)
+     */
+    List<Document> explainFilter(QuestionFilter filter) {
+        List<Document> plans = new ArrayList<>(2);
+        plans.add(mongoCollection().find(keyset(filter, new ObjectId())).sort(ID_ASCENDING).limit(1).explain(Document.class));
+        if (!filter.isEmpty()) {
+            plans.add(mongoCollection().find(filter.toDocument()).explain(Document.class));
+        }
+        return plans;
+    }
+
+    private static Map<Integer, String> writeErrors(MongoBulkWriteException e) {
+        Map<Integer, String> errors = new HashMap<>();
+        for (BulkWriteError error : e.getWriteErrors()) {
+            errors.put(error.getIndex(), error.getMessage());
+        }
+        return errors;
     }
 
-    public List<QuizQuestion> findByDifficulty(String difficulty) {
-        return list("difficulty", difficulty);
+    private static Document keyset(QuestionFilter filter, ObjectId after) {
+        Document query = filter.toDocument();
+        if (after != null) {
+            query.append("_id", new Document("$gt", after));
+        }
+        return query;
     }
 
-    public List<QuizQuestion> findByCategoryAndDifficulty(String category, String difficulty) {
-        return list("category = ?1 and difficulty = ?2", category, difficulty);
+    // Gleiche Darstellung wie bei der Entität: "id" als Hex-String statt "_id"
+    private static Map<String, Object> withHexId(Document document) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", document.getObjectId("_id").toHexString());
+        document.forEach((key, value) -> {
+            if (!"_id".equals(key)) item.put(key, value);
+        });
+        return item;
     }
 }
@@ -1,58 +1,196 @@
 package org.acme;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 import org.bson.types.ObjectId;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.StreamingOutput;
 
 @Path("/api/quiz")
+@RunOnVirtualThread
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class QuizResource {
 
+    static final String NDJSON = "application/x-ndjson";
+
+    // Browser dürfen zwischenspeichern, müssen aber per ETag nachfragen
+    private static final CacheControl REVALIDATE = CacheControl.valueOf("private, no-cache");
+
     @Inject
-    QuizQuestionRepository repository;
+    QuestionStore repository;
     
     @Inject
     QuizService quizService;
 
+    @Inject
+    QuestionImporter questionImporter;
+
+    @Inject
+    GradingService gradingService;
+
+    @Inject
+    QuestionVersions versions;
+
+    @Inject
+    QuestionCatalog catalog;
+
+    @Inject
+    QuestionJsonCache jsonCache;
+
+    @Inject
+    ReviewScheduler reviews;
+
     @GET
-    public List<QuizQuestion> getAllQuestions() {
-        return repository.listAll();
+    public Response getAllQuestions(@QueryParam("fields") String fields, @Context Request request, @Context HttpHeaders headers) {
+        List<String> projection = parseFields(fields);
+        if (fields != null && projection == null) {
+            return invalidFields();
+        }
+        return conditional(request, headers, versions.collectionTag(), versions.collectionLastModified(),
+            () -> projection == null ? jsonCache.array(catalog.listAll()) : catalog.listProjected(projection));
+    }
+
+    @GET
+    @Path("/summary")
+    public Response getSummaries(
+            @QueryParam("type") String type,
+            @QueryParam("category") String category,
+            @QueryParam("difficulty") String difficulty,
+            @QueryParam("after") String after,
+            @QueryParam("limit") int limit,
+            @Context Request request, @Context HttpHeaders headers) {
+        ObjectId cursor = parseCursor(after);
+        if (after != null && cursor == null) {
+            return invalidCursor();
+        }
+        return conditional(request, headers, versions.collectionTag(), versions.collectionLastModified(),
+            () -> repository.findSummaries(new QuestionFilter(type, category, difficulty), cursor, limit));
+    }
+
+    @GET
+    @Path("/export")
+    @Produces(NDJSON)
+    public Response exportQuestions(
+            @QueryParam("type") String type,
+            @QueryParam("category") String category,
+            @QueryParam("difficulty") String difficulty,
+            @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        StreamingOutput body = output -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(output, 8192);
+                quizService.exportQuestions(type, category, difficulty, compressed);
+                compressed.finish();
+            } else {
+                quizService.exportQuestions(type, category, difficulty, output);
+            }
+        };
+
+        Response.ResponseBuilder response = Response.ok(body, NDJSON)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.build();
     }
 
     @GET
     @Path("/{id}")
-    public Response getQuestionById(@PathParam("id") String id) {
-        QuizQuestion question = repository.findById(new ObjectId(id));
+    public Response getQuestionById(@PathParam("id") String id, @QueryParam("fields") String fields, @Context Request request, @Context HttpHeaders headers) {
+        List<String> projection = parseFields(fields);
+        if (fields != null && projection == null) {
+            return invalidFields();
+        }
+        ObjectId objectId = new ObjectId(id);
+        // 304 nur für Fragen, die es gibt; der Tag kommt aus der gespeicherten Version
+        QuizQuestion question = catalog.findById(objectId);
         if (question == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
-        return Response.ok(question).build();
+        EntityTag tag = versions.documentTag(question);
+        Date lastModified = versions.documentLastModified(objectId);
+
+        Response.ResponseBuilder notModified = notModified(request, headers, tag, lastModified);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        Object body = projection == null ? jsonCache.single(question) : question.project(projection);
+        return Response.ok(body).tag(tag).lastModified(lastModified).cacheControl(REVALIDATE).build();
     }
 
     @GET
     @Path("/category/{category}")
-    public List<QuizQuestion> getQuestionsByCategory(@PathParam("category") String category) {
-        return repository.findByCategory(category);
+    public Response getQuestionsByCategory(
+            @PathParam("category") String category,
+            @QueryParam("after") String after,
+            @QueryParam("limit") int limit,
+            @QueryParam("fields") String fields,
+            @Context Request request, @Context HttpHeaders headers) {
+        ObjectId cursor = parseCursor(after);
+        if (after != null && cursor == null) {
+            return invalidCursor();
+        }
+        List<String> projection = parseFields(fields);
+        if (fields != null && projection == null) {
+            return invalidFields();
+        }
+        return conditional(request, headers, versions.collectionTag(), versions.collectionLastModified(),
+            () -> projection == null
+                ? jsonCache.page(catalog.findPage(new QuestionFilter(null, category, null), cursor, limit))
+                : catalog.findProjected(new QuestionFilter(null, category, null), projection, cursor, limit));
     }
 
     @GET
     @Path("/difficulty/{difficulty}")
-    public List<QuizQuestion> getQuestionsByDifficulty(@PathParam("difficulty") String difficulty) {
-        return repository.findByDifficulty(difficulty);
+    public Response getQuestionsByDifficulty(
+            @PathParam("difficulty") String difficulty,
+            @QueryParam("after") String after,
+            @QueryParam("limit") int limit,
+            @QueryParam("fields") String fields,
+            @Context Request request, @Context HttpHeaders headers) {
+        ObjectId cursor = parseCursor(after);
+        if (after != null && cursor == null) {
+            return invalidCursor();
+        }
+        List<String> projection = parseFields(fields);
+        if (fields != null && projection == null) {
+            return invalidFields();
+        }
+        return conditional(request, headers, versions.collectionTag(), versions.collectionLastModified(),
+            () -> projection == null
+                ? jsonCache.page(catalog.findPage(new QuestionFilter(null, null, difficulty), cursor, limit))
+                : catalog.findProjected(new QuestionFilter(null, null, difficulty), projection, cursor, limit));
     }
 
     @POST
@@ -67,59 +205,99 @@ public class QuizResource {
         }
     }
 
+    @POST
+    @Path("/import")
+    @Consumes({NDJSON, MediaType.APPLICATION_JSON})
+    public Response importQuestions(
+            @HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType,
+            @QueryParam("mode") String mode,
+            InputStream body) throws IOException {
+        boolean upsert = "upsert".equals(mode);
+        QuestionImporter.ImportReport report = contentType != null && contentType.startsWith(NDJSON)
+            ? questionImporter.importNdjson(body, upsert)
+            : questionImporter.importJsonArray(body, upsert);
+        return Response.ok(report).build();
+    }
+
+    @POST
+    @Path("/grade")
+    public Response gradeAnswers(GradingService.GradeRequest request) {
+        if (request == null || request.answers == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("{\"error\": \"Antworten fehlen\"}")
+                .build();
+        }
+        return Response.ok(gradingService.grade(request.answers)).build();
+    }
+
     @PUT
     @Path("/{id}")
     public Response updateQuestion(@PathParam("id") String id, QuizQuestion updatedQuestion) {
+        if (updatedQuestion != null && updatedQuestion.version == null) {
+            return versionRequired();
+        }
         try {
             QuizQuestion updated = quizService.updateQuestion(id, updatedQuestion);
             return Response.ok(updated).build();
-        } catch (IllegalArgumentException e) {
-            if (e.getMessage().contains("nicht gefunden")) {
-                return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
-            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return mutationError(e);
+        }
+    }
+
+    /**
+     * Teiländerung: nur die enthaltenen Felder plus die zuletzt gelesene Version
+     */
+    @PATCH
+    @Path("/{id}")
+    public Response patchQuestion(@PathParam("id") String id, ObjectNode patch) {
+        if (patch == null) {
             return Response.status(Response.Status.BAD_REQUEST)
-                .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                .entity("{\"error\": \"Änderungen fehlen\"}")
                 .build();
         }
+        try {
+            return Response.ok(quizService.patchQuestion(id, patch)).build();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return mutationError(e);
+        }
     }
 
     @DELETE
     @Path("/{id}")
-    public Response deleteQuestion(@PathParam("id") String id) {
-        QuizQuestion question = repository.findById(new ObjectId(id));
-        if (question == null) {
-            return Response.status(Response.Status.NOT_FOUND).build();
+    public Response deleteQuestion(@PathParam("id") String id, @QueryParam("version") Long version) {
+        if (version == null) {
+            return versionRequired();
+        }
+        try {
+            if (!quizService.deleteQuestion(id, version)) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+        } catch (IllegalStateException e) {
+            return mutationError(e);
         }
-        repository.delete(question);
         return Response.noContent().build();
     }
 
+    /**
+     * Ohne Filter und mit Nutzer-Key kommt die Frage aus der Wiederholung (fällige zuerst), sonst gleichverteilt
+     */
     @GET
     @Path("/random")
     public Response getRandomQuestion(
             @QueryParam("category") String category,
-            @QueryParam("difficulty") String difficulty) {
+            @QueryParam("difficulty") String difficulty,
+            @Context SecurityContext security) {
         
-        List<QuizQuestion> questions;
+        QuestionFilter filter = new QuestionFilter(null, category, difficulty);
+        QuizQuestion question = filter.isEmpty() && security.getUserPrincipal() != null && reviews.isEnabled()
+            ? reviews.next(security.getUserPrincipal().getName())
+            : catalog.sampleOne(filter);
         
-        if (category != null && difficulty != null) {
-            questions = repository.findByCategoryAndDifficulty(category, difficulty);
-        } else if (category != null) {
-            questions = repository.findByCategory(category);
-        } else if (difficulty != null) {
-            questions = repository.findByDifficulty(difficulty);
-        } else {
-            questions = repository.listAll();
-        }
-        
-        if (questions.isEmpty()) {
+        if (question == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
         
-        int randomIndex = (int) (Math.random() * questions.size());
-        return Response.ok(questions.get(randomIndex)).build();
+        return Response.ok(question).build();
     }
     
     @GET
@@ -133,8 +311,123 @@ public class QuizResource {
     public Response filterQuestions(
             @QueryParam("type") String type,
             @QueryParam("category") String category,
-            @QueryParam("difficulty") String difficulty) {
-        List<QuizQuestion> filtered = quizService.filterQuestions(type, category, difficulty);
-        return Response.ok(filtered).build();
+            @QueryParam("difficulty") String difficulty,
+            @QueryParam("after") String after,
+            @QueryParam("limit") int limit,
+            @QueryParam("fields") String fields,
+            @Context Request request, @Context HttpHeaders headers) {
+        ObjectId cursor = parseCursor(after);
+        if (after != null && cursor == null) {
+            return invalidCursor();
+        }
+        List<String> projection = parseFields(fields);
+        if (fields != null && projection == null) {
+            return invalidFields();
+        }
+        return conditional(request, headers, versions.collectionTag(), versions.collectionLastModified(),
+            () -> projection == null
+                ? jsonCache.page(quizService.filterQuestions(type, category, difficulty, cursor, limit))
+                : catalog.findProjected(new QuestionFilter(type, category, difficulty), projection, cursor, limit));
+    }
+
+    @GET
+    @Path("/search")
+    public Response searchQuestions(
+            @QueryParam("q") String query,
+            @QueryParam("type") String type,
+            @QueryParam("category") String category,
+            @QueryParam("difficulty") String difficulty,
+            @QueryParam("offset") int offset,
+            @QueryParam("limit") int limit,
+            @Context Request request, @Context HttpHeaders headers) {
+        if (query == null || query.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("{\"error\": \"Suchbegriff fehlt\"}")
+                .build();
+        }
+        return conditional(request, headers, versions.collectionTag(), versions.collectionLastModified(),
+            () -> quizService.searchQuestions(query, type, category, difficulty, offset, limit));
+    }
+
+    /**
+     * Beantwortet If-None-Match/If-Modified-Since mit 304, ohne die Abfrage auszuführen.
+     * Der Tag wird vor der Abfrage gelesen, damit eine gleichzeitige Änderung nie unter altem Tag ausgeliefert wird.
+     */
+    private Response conditional(Request request, HttpHeaders headers, EntityTag tag, Date lastModified, Supplier<Object> body) {
+        Response.ResponseBuilder notModified = notModified(request, headers, tag, lastModified);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(body.get()).tag(tag).lastModified(lastModified).cacheControl(REVALIDATE).build();
+    }
+
+    /**
+     * Wie RFC 7232: mit If-None-Match entscheidet allein der ETag. If-Modified-Since ist nur sekundengenau und würde
+     * eine Änderung in derselben Sekunde als unverändert melden; es zählt daher nur ohne If-None-Match.
+     */
+    private static Response.ResponseBuilder notModified(Request request, HttpHeaders headers, EntityTag tag, Date lastModified) {
+        if (headers.getHeaderString(HttpHeaders.IF_NONE_MATCH) != null) {
+            return request.evaluatePreconditions(tag);
+        }
+        return request.evaluatePreconditions(lastModified);
+    }
+
+    private ObjectId parseCursor(String after) {
+        if (after == null || !ObjectId.isValid(after)) {
+            return null;
+        }
+        return new ObjectId(after);
+    }
+
+    /**
+     * Kommagetrennte Feldliste für die Projektion; null bei fehlender oder ungültiger Angabe
+     */
+    private List<String> parseFields(String fields) {
+        if (fields == null) {
+            return null;
+        }
+        List<String> projection = Arrays.stream(fields.split(","))
+            .map(String::trim)
+            .filter(field -> !field.isEmpty())
+            .distinct()
+            .toList();
+        if (projection.isEmpty() || !QuestionStore.PROJECTABLE_FIELDS.containsAll(projection)) {
+            return null;
+        }
+        return projection;
+    }
+
+    // 409 bei zwischenzeitlicher Änderung, 404 bei unbekannter Frage, sonst 400
+    private Response mutationError(RuntimeException e) {
+        Response.Status status;
+        if (e instanceof IllegalStateException) {
+            status = Response.Status.CONFLICT;
+        } else if (e.getMessage().contains("nicht gefunden")) {
+            status = Response.Status.NOT_FOUND;
+        } else {
+            status = Response.Status.BAD_REQUEST;
+        }
+        return Response.status(status)
+            .entity("{\"error\": \"" + e.getMessage() + "\"}")
+            .build();
+    }
+
+    // 428: ohne Version ließe sich eine zwischenzeitliche Änderung nicht erkennen
+    private Response versionRequired() {
+        return Response.status(Response.Status.PRECONDITION_REQUIRED)
+            .entity("{\"error\": \"" + QuizService.VERSION_MISSING + "\"}")
+            .build();
+    }
+
+    private Response invalidFields() {
+        return Response.status(Response.Status.BAD_REQUEST)
+            .entity("{\"error\": \"Ungültige Feldauswahl\"}")
+            .build();
+    }
+
+    private Response invalidCursor() {
+        return Response.status(Response.Status.BAD_REQUEST)
+            .entity("{\"error\": \"Ungültiger Cursor\"}")
+            .build();
     }
 }
@@ -1,18 +1,55 @@
 package org.acme;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
 
 import org.bson.types.ObjectId;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 @ApplicationScoped
 public class QuizService {
 
+    static final String CONFLICT = "Frage wurde zwischenzeitlich geändert";
+    static final String VERSION_MISSING = "Version fehlt";
+
     @Inject
-    QuizQuestionRepository repository;
+    QuestionStore repository;
+
+    @Inject
+    QuestionStatistics statistics;
+
+    @Inject
+    GradingService gradingService;
+
+    @Inject
+    QuestionVersions versions;
+
+    @Inject
+    QuestionSearchIndex searchIndex;
+
+    @Inject
+    QuestionCatalog catalog;
+
+    @Inject
+    QuestionJsonCache jsonCache;
+
+    @Inject
+    QuestionChanges changes;
+
+    @Inject
+    ObjectMapper objectMapper;
 
     /**
      * Erstelle eine neue Frage mit Validierung und Normalisierung
@@ -24,72 +61,195 @@ public class QuizService {
             throw new IllegalArgumentException("Ungültige Fragendaten");
         }
         
-        repository.persist(question);
-        return question;
+        question.version = 0L;
+        return statistics.tracked(() -> {
+            repository.persist(question);
+            statistics.recordCreated(question);
+            catalog.insert(List.of(question), created -> published(question));
+            return question;
+        });
     }
 
     /**
-     * Aktualisiere eine Frage mit Validierung
+     * Ersetzt den Inhalt einer Frage in einem einzigen Schreibzugriff, nur wenn niemand sie seit der
+     * mitgeschickten Version geändert hat
      */
     public QuizQuestion updateQuestion(String id, QuizQuestion updatedQuestion) {
-        QuizQuestion question = repository.findById(new ObjectId(id));
-        if (question == null) {
-            throw new IllegalArgumentException("Frage nicht gefunden");
+        ObjectId objectId = new ObjectId(id);
+        if (updatedQuestion.version == null) {
+            throw new IllegalArgumentException(VERSION_MISSING);
         }
-        
         updatedQuestion.normalizeData();
         
         if (!updatedQuestion.isValid()) {
             throw new IllegalArgumentException("Ungültige Fragendaten");
         }
-        
-        // Update Felder
-        question.question = updatedQuestion.question;
-        question.questionType = updatedQuestion.questionType;
-        question.answers = updatedQuestion.answers;
-        question.correctAnswerIndices = updatedQuestion.correctAnswerIndices;
-        question.textAnswer = updatedQuestion.textAnswer;
-        question.leftItems = updatedQuestion.leftItems;
-        question.rightItems = updatedQuestion.rightItems;
-        question.correctMappings = updatedQuestion.correctMappings;
-        question.category = updatedQuestion.category;
-        question.difficulty = updatedQuestion.difficulty;
-        
-        repository.update(question);
-        return question;
+
+        return statistics.tracked(() -> {
+            QuizQuestion before = repository.updateFields(objectId, updatedQuestion.version, updatedQuestion.contentFields());
+            if (before == null) {
+                throw missingOrConflict(objectId);
+            }
+            updatedQuestion.id = objectId;
+            updatedQuestion.version = before.currentVersion() + 1;
+            updated(before, updatedQuestion);
+            return updatedQuestion;
+        });
+    }
+
+    /**
+     * Ändert nur die übergebenen Felder. Die Version ist Pflicht; validiert wird der zusammengeführte Stand,
+     * geschrieben werden per $set/$unset nur Felder, die sich danach tatsächlich unterscheiden.
+     */
+    public QuizQuestion patchQuestion(String id, ObjectNode patch) {
+        ObjectId objectId = new ObjectId(id);
+        JsonNode versionNode = patch.remove("version");
+        if (versionNode == null || !versionNode.canConvertToLong()) {
+            throw new IllegalArgumentException(VERSION_MISSING);
+        }
+        long expectedVersion = versionNode.asLong();
+        patch.fieldNames().forEachRemaining(field -> {
+            if (!QuestionStore.PROJECTABLE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unbekanntes Feld " + field);
+            }
+        });
+
+        // Basis aus dem Katalog; nur wenn der (noch) einen anderen Stand hat, wird nachgelesen
+        QuizQuestion base = catalog.findById(objectId);
+        if (base == null || base.currentVersion() != expectedVersion) {
+            base = repository.findById(objectId);
+            if (base == null) {
+                throw new IllegalArgumentException("Frage nicht gefunden");
+            }
+            if (base.currentVersion() != expectedVersion) {
+                throw new IllegalStateException(CONFLICT);
+            }
+        }
+
+        QuizQuestion merged = base.copy();
+        try {
+            objectMapper.readerForUpdating(merged).readValue(patch);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Ungültige Fragendaten");
+        }
+        if (merged.questionType == null) {
+            throw new IllegalArgumentException("Ungültige Fragendaten");
+        }
+        merged.normalizeData();
+        if (!merged.isValid()) {
+            throw new IllegalArgumentException("Ungültige Fragendaten");
+        }
+
+        Map<String, Object> previous = base.contentFields();
+        Map<String, Object> changes = new LinkedHashMap<>();
+        merged.contentFields().forEach((field, value) -> {
+            if (!Objects.equals(previous.get(field), value)) changes.put(field, value);
+        });
+        if (changes.isEmpty()) {
+            return base;
+        }
+
+        return statistics.tracked(() -> {
+            QuizQuestion before = repository.updateFields(objectId, expectedVersion, changes);
+            if (before == null) {
+                throw missingOrConflict(objectId);
+            }
+            merged.version = expectedVersion + 1;
+            updated(before, merged);
+            return merged;
+        });
     }
 
     /**
-     * Hole alle Fragen mit Statistiken
+     * Lösche eine Frage in einem einzigen Zugriff, nur wenn sie seit der angegebenen Version nicht geändert wurde
+     */
+    public boolean deleteQuestion(String id, long expectedVersion) {
+        ObjectId objectId = new ObjectId(id);
+        QuizQuestion question = statistics.tracked(() -> {
+            QuizQuestion deleted = repository.deleteById(objectId, expectedVersion);
+            if (deleted == null) return null;
+            statistics.recordDeleted(deleted);
+            gradingService.invalidate(deleted.id);
+            catalog.delete(deleted, () -> {
+                searchIndex.delete(deleted.id);
+                jsonCache.invalidate(deleted.id);
+                versions.bump(deleted.id);
+                changes.deleted(deleted.id);
+            });
+            return deleted;
+        });
+        if (question == null) {
+            if (repository.findById(objectId) != null) {
+                throw new IllegalStateException(CONFLICT);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // Zähler und Antwortschlüssel vertragen jede Reihenfolge; alles, was den Stand zeigt, nur mit neuerer Version
+    private void updated(QuizQuestion before, QuizQuestion after) {
+        statistics.recordUpdated(QuestionStatistics.Facet.of(before), after);
+        gradingService.invalidate(after.id);
+        catalog.upsert(after, () -> published(after));
+    }
+
+    // Läuft unter der Katalogsperre; zuletzt die Version: wer sie sieht, bekommt auch den neuen Stand
+    private void published(QuizQuestion question) {
+        searchIndex.index(question);
+        jsonCache.invalidate(question.id);
+        versions.bump(question.id);
+        changes.upserted(question.id);
+    }
+
+    // Nur im Fehlerfall ein zweiter Zugriff: unbekannte ID oder zwischenzeitliche Änderung
+    private RuntimeException missingOrConflict(ObjectId id) {
+        if (repository.findById(id) == null) {
+            return new IllegalArgumentException("Frage nicht gefunden");
+        }
+        return new IllegalStateException(CONFLICT);
+    }
+
+    /**
+     * Volltextsuche über den In-Memory-Index, kombinierbar mit den üblichen Filtern
+     */
+    public QuestionSearchIndex.SearchResult searchQuestions(String query, String type, String category, String difficulty, int offset, int limit) {
+        return searchIndex.search(query, new QuestionFilter(type, category, difficulty), offset, limit);
+    }
+
+    /**
+     * Hole Statistiken aus den laufend gepflegten Zählern
      */
     public QuizStatistics getStatistics() {
-        List<QuizQuestion> allQuestions = repository.listAll();
-        
-        long totalQuestions = allQuestions.size();
-        long multipleChoice = allQuestions.stream()
-            .filter(q -> "multiple-choice".equals(q.questionType))
-            .count();
-        long textQuestions = allQuestions.stream()
-            .filter(q -> "text".equals(q.questionType))
-            .count();
-        long matchingQuestions = allQuestions.stream()
-            .filter(q -> "matching".equals(q.questionType))
-            .count();
-        
-        return new QuizStatistics(totalQuestions, multipleChoice, textQuestions, matchingQuestions);
+        return statistics.snapshot();
     }
 
     /**
-     * Filtere Fragen nach mehreren Kriterien
+     * Filtere Fragen nach mehreren Kriterien über die Bitmaps des Katalogs, seitenweise nach _id
      */
-    public List<QuizQuestion> filterQuestions(String type, String category, String difficulty) {
-        List<QuizQuestion> questions = repository.listAll();
-        
-        return questions.stream()
-            .filter(q -> type == null || type.equals(q.questionType))
-            .filter(q -> category == null || category.equals(q.category))
-            .filter(q -> difficulty == null || difficulty.equals(q.difficulty))
-            .collect(Collectors.toList());
+    public QuestionPage<QuizQuestion> filterQuestions(String type, String category, String difficulty, ObjectId after, int limit) {
+        return catalog.findPage(new QuestionFilter(type, category, difficulty), after, limit);
+    }
+
+    /**
+     * Schreibe passende Fragen als NDJSON direkt aus dem Cursor, ohne die Liste im Speicher aufzubauen
+     */
+    public void exportQuestions(String type, String category, String difficulty, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(QuizQuestion.class);
+
+        try {
+            repository.forEachMatching(new QuestionFilter(type, category, difficulty), question -> {
+                try {
+                    out.write(writer.writeValueAsBytes(question));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
     }
 
     /**
@@ -100,12 +260,22 @@ public class QuizService {
         public long multipleChoiceQuestions;
         public long textQuestions;
         public long matchingQuestions;
+        public Map<String, Long> byType;
+        public Map<String, Long> byCategory;
+        public Map<String, Long> byDifficulty;
+        public List<QuestionStatistics.FacetCount> facets;
 
-        public QuizStatistics(long total, long mc, long text, long matching) {
+        public QuizStatistics(long total, long mc, long text, long matching,
+                              Map<String, Long> byType, Map<String, Long> byCategory, Map<String, Long> byDifficulty,
+                              List<QuestionStatistics.FacetCount> facets) {
             this.totalQuestions = total;
             this.multipleChoiceQuestions = mc;
             this.textQuestions = text;
             this.matchingQuestions = matching;
+            this.byType = byType;
+            this.byCategory = byCategory;
+            this.byDifficulty = byDifficulty;
+            this.facets = facets;
         }
     }
 }
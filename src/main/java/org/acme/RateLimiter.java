@@ -0,0 +1,132 @@
+package org.acme;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.acme.AccessKey.KeyRole;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Token-Bucket je API-Schlüssel, gespeichert als ein einziger Zeitstempel (GCRA):
+ * der Zeitpunkt, zu dem der Bucket wieder voll wäre. Ein Request ist ein CAS ohne Lock und ohne Allokation.
+ * Die Buckets sind über die ConcurrentHashMap gestreut; volle Buckets gelten als unbenutzt und werden weggeräumt.
+ */
+@ApplicationScoped
+public class RateLimiter {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    @ConfigProperty(name = "app.rate-limit.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.rate-limit.user.per-second", defaultValue = "20")
+    double userPerSecond;
+
+    @ConfigProperty(name = "app.rate-limit.user.burst", defaultValue = "40")
+    int userBurst;
+
+    @ConfigProperty(name = "app.rate-limit.admin.per-second", defaultValue = "50")
+    double adminPerSecond;
+
+    @ConfigProperty(name = "app.rate-limit.admin.burst", defaultValue = "200")
+    int adminBurst;
+
+    @ConfigProperty(name = "app.rate-limit.key-manager.per-second", defaultValue = "5")
+    double keyManagerPerSecond;
+
+    @ConfigProperty(name = "app.rate-limit.key-manager.burst", defaultValue = "20")
+    int keyManagerBurst;
+
+    @ConfigProperty(name = "app.rate-limit.max-buckets", defaultValue = "100000")
+    int maxBuckets;
+
+    @ConfigProperty(name = "app.rate-limit.sweep-interval", defaultValue = "1m")
+    Duration sweepInterval;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    /**
+     * Verbraucht ein Token; Ergebnis 0 heißt erlaubt, sonst die Wartezeit in Nanosekunden bis zum nächsten Token
+     */
+    public long acquire(ApiKeyCache.ResolvedKey key) {
+        if (!enabled) return 0;
+
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(key.hash());
+        if (bucket == null) {
+            bucket = createBucket(key, now);
+        }
+        return bucket.acquire(now);
+    }
+
+    private Bucket createBucket(ApiKeyCache.ResolvedKey key, long now) {
+        if (buckets.size() >= maxBuckets || now - lastSweep.get() > sweepInterval.toNanos()) {
+            evictIdle(now);
+        }
+
+        double perSecond = key.rateLimitPerSecond() != null ? key.rateLimitPerSecond() : perSecond(key.role());
+        int burst = key.rateLimitBurst() != null ? key.rateLimitBurst() : burst(key.role());
+        return buckets.computeIfAbsent(key.hash(), hash -> new Bucket(perSecond, burst, now));
+    }
+
+    /**
+     * Entfernt Buckets, die sich vollständig aufgefüllt haben; ein neuer Bucket wäre identisch
+     */
+    private void evictIdle(long now) {
+        long previous = lastSweep.get();
+        if (!lastSweep.compareAndSet(previous, now)) return;
+        buckets.values().removeIf(bucket -> bucket.isIdle(now));
+    }
+
+    private double perSecond(KeyRole role) {
+        return switch (role) {
+            case ADMIN -> adminPerSecond;
+            case KEY_MANAGER -> keyManagerPerSecond;
+            default -> userPerSecond;
+        };
+    }
+
+    private int burst(KeyRole role) {
+        return switch (role) {
+            case ADMIN -> adminBurst;
+            case KEY_MANAGER -> keyManagerBurst;
+            default -> userBurst;
+        };
+    }
+
+    static final class Bucket {
+        private final long interval;
+        private final long tolerance;
+        // Zeitpunkt, zu dem der Bucket wieder voll ist
+        private final AtomicLong fullAt;
+
+        Bucket(double perSecond, int burst, long now) {
+            this.interval = Math.max(1L, (long) (NANOS_PER_SECOND / Math.max(perSecond, 1e-9)));
+            this.tolerance = interval * Math.max(1, burst);
+            this.fullAt = new AtomicLong(now);
+        }
+
+        long acquire(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + interval;
+                long excess = next - now - tolerance;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isIdle(long now) {
+            return fullAt.get() - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.acme;
+
+import java.time.Instant;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Lernstand eines Nutzers zu einer Frage: Fach im Leitner-System (0 = zuletzt falsch) und nächste Fälligkeit
+ */
+public record Review(String userId, ObjectId questionId, int box, Instant due) { }
@@ -0,0 +1,301 @@
+package org.acme;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Wiederholung nach dem Leitner-System je Nutzer: eine richtige Antwort schiebt die Frage ein Fach weiter
+ * (längeres Intervall aus app.review.intervals), eine falsche zurück ins erste Fach.
+ * Je Nutzer liegt ein Min-Heap nach Fälligkeit im Speicher; die nächste Frage ist die Wurzel, also O(log n).
+ * Ist nichts fällig, kommt eine noch nicht gesehene Zufallsfrage aus dem Katalog, ohne die Fragen zu durchlaufen.
+ * Höchstens max-users Nutzer bleiben im Speicher (LRU), die übrigen werden beim nächsten Zugriff aus dem Speicher nachgeladen.
+ * Geänderte Einträge werden periodisch geschrieben; ein Nutzer mit ungeschriebenen Änderungen bleibt bis dahin erhalten.
+ */
+@ApplicationScoped
+public class ReviewScheduler {
+
+    private static final Logger LOG = Logger.getLogger(ReviewScheduler.class);
+
+    @Inject
+    ReviewStore store;
+
+    @Inject
+    QuestionCatalog catalog;
+
+    @ConfigProperty(name = "app.review.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.review.intervals", defaultValue = "1m,10m,1d,3d,7d,21d")
+    List<Duration> intervals;
+
+    @ConfigProperty(name = "app.review.served-hold", defaultValue = "10m")
+    Duration servedHold;
+
+    @ConfigProperty(name = "app.review.new-question-attempts", defaultValue = "5")
+    int newQuestionAttempts;
+
+    @ConfigProperty(name = "app.review.max-users", defaultValue = "10000")
+    int maxUsers;
+
+    private Map<String, UserQueue> users;
+    private final ReentrantLock usersLock = new ReentrantLock();
+
+    // Nutzer mit ungeschriebenen Änderungen; hält sie auch nach der Verdrängung aus dem LRU
+    private final Map<String, UserQueue> dirty = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @PostConstruct
+    void init() {
+        users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UserQueue> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Nächste Frage für den Nutzer: die am längsten fällige, sonst eine neue, sonst die als nächstes fällige.
+     * Die Frage wird für served-hold zurückgestellt, damit Folgeanfragen vor der Antwort nicht dieselbe liefern.
+     * Lässt sich der Lernstand nicht laden, gibt es eine gleichverteilte Zufallsfrage.
+     */
+    public QuizQuestion next(String userId) {
+        UserQueue queue;
+        try {
+            queue = queue(userId);
+        } catch (RuntimeException e) {
+            LOG.debugf("Lernstand von %s nicht geladen, Zufallsfrage stattdessen: %s", userId, e.getMessage());
+            return catalog.sampleOne(QuestionFilter.ALL);
+        }
+        long now = System.currentTimeMillis();
+        queue.lock.lock();
+        try {
+            Entry due = queue.peekValid(catalog);
+            if (due == null || due.dueMs > now) {
+                QuizQuestion fresh = unseen(queue);
+                if (fresh != null) {
+                    queue.hold(fresh.id, -1, now + servedHold.toMillis());
+                    return fresh;
+                }
+            }
+            if (due == null) return null;
+            queue.hold(due.questionId, due.box, Math.max(due.dueMs, now + servedHold.toMillis()));
+            return catalog.findById(due.questionId);
+        } finally {
+            queue.lock.unlock();
+        }
+    }
+
+    /**
+     * Verbucht einen Antwortversuch; lädt den Nutzer bei Bedarf nach. Fehler beim Laden gehen nur ins Log,
+     * der Versuch selbst ist dann trotzdem angenommen.
+     */
+    public void record(AnswerAttempt attempt) {
+        if (!enabled || attempt.userId() == null) return;
+        UserQueue queue;
+        try {
+            queue = queue(attempt.userId());
+        } catch (RuntimeException e) {
+            LOG.warnf("Lernstand von %s nicht geladen, Antwort wird für die Wiederholung nicht berücksichtigt: %s",
+                attempt.userId(), e.getMessage());
+            return;
+        }
+
+        queue.lock.lock();
+        try {
+            Entry current = queue.entries.get(attempt.questionId());
+            int previous = current == null ? 0 : Math.max(current.box, 0);
+            int box = attempt.correct() ? Math.min(previous + 1, intervals.size() - 1) : 0;
+            long due = attempt.at().toEpochMilli() + intervals.get(box).toMillis();
+            queue.put(new Entry(attempt.questionId(), box, due));
+            queue.changed.put(attempt.questionId(), new Review(attempt.userId(), attempt.questionId(), box, Instant.ofEpochMilli(due)));
+        } finally {
+            queue.lock.unlock();
+        }
+        dirty.put(attempt.userId(), queue);
+    }
+
+    @Scheduled(every = "${app.review.flush-interval:10s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledFlush() {
+        flush();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        flush();
+    }
+
+    /**
+     * Schreibt alle geänderten Einträge in einem Zugriff; scheitert er, werden sie für den nächsten Lauf zurückgelegt
+     */
+    public void flush() {
+        if (!enabled || !flushLock.tryLock()) return;
+        try {
+            Map<UserQueue, List<Review>> batch = new HashMap<>();
+            List<Review> reviews = new ArrayList<>();
+            for (UserQueue queue : dirty.values()) {
+                queue.lock.lock();
+                try {
+                    List<Review> changed = List.copyOf(queue.changed.values());
+                    queue.changed.clear();
+                    batch.put(queue, changed);
+                    reviews.addAll(changed);
+                } finally {
+                    queue.lock.unlock();
+                }
+            }
+            if (reviews.isEmpty()) return;
+
+            boolean saved;
+            try {
+                store.save(reviews);
+                saved = true;
+            } catch (RuntimeException e) {
+                LOG.warnf("Lernstand von %d Nutzern nicht geschrieben, neuer Versuch im nächsten Lauf: %s", batch.size(), e.getMessage());
+                saved = false;
+            }
+            // Erst nach dem Schreiben austragen, sonst könnte ein verdrängter Nutzer den alten Stand nachladen
+            for (Map.Entry<UserQueue, List<Review>> entry : batch.entrySet()) {
+                UserQueue queue = entry.getKey();
+                queue.lock.lock();
+                try {
+                    if (!saved) {
+                        // Neuere Änderungen seit dem Einsammeln haben Vorrang
+                        for (Review review : entry.getValue()) queue.changed.putIfAbsent(review.questionId(), review);
+                    } else if (queue.changed.isEmpty()) {
+                        dirty.remove(queue.userId, queue);
+                    }
+                } finally {
+                    queue.lock.unlock();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Nutzer aus dem LRU, aus den ungeschriebenen Änderungen oder frisch aus dem Speicher.
+     * Geladen wird ohne Sperre; laden zwei Anfragen gleichzeitig, gewinnt die erste.
+     */
+    private UserQueue queue(String userId) {
+        UserQueue queue = cached(userId);
+        if (queue != null) return queue;
+
+        UserQueue loaded = new UserQueue(userId);
+        for (Review review : store.load(userId)) {
+            loaded.put(new Entry(review.questionId(), review.box(), review.due().toEpochMilli()));
+        }
+        usersLock.lock();
+        try {
+            queue = users.get(userId);
+            if (queue == null) {
+                queue = dirty.getOrDefault(userId, loaded);
+                users.put(userId, queue);
+            }
+            return queue;
+        } finally {
+            usersLock.unlock();
+        }
+    }
+
+    private UserQueue cached(String userId) {
+        usersLock.lock();
+        try {
+            UserQueue queue = users.get(userId);
+            if (queue == null) {
+                queue = dirty.get(userId);
+                if (queue != null) users.put(userId, queue);
+            }
+            return queue;
+        } finally {
+            usersLock.unlock();
+        }
+    }
+
+    // Zufallsfrage, die der Nutzer noch nicht hat; nach newQuestionAttempts Fehlgriffen gibt es keine
+    private QuizQuestion unseen(UserQueue queue) {
+        for (int i = 0; i < newQuestionAttempts; i++) {
+            QuizQuestion question = catalog.sampleOne(QuestionFilter.ALL);
+            if (question == null) return null;
+            if (!queue.entries.containsKey(question.id)) return question;
+        }
+        return null;
+    }
+
+    /**
+     * box -1: nur ausgeliefert, noch nie beantwortet
+     */
+    private record Entry(ObjectId questionId, int box, long dueMs) { }
+
+    /**
+     * Lernstand eines Nutzers. Der Heap wird nicht umsortiert: ein geänderter Eintrag kommt neu hinein,
+     * der alte bleibt liegen und wird beim Herausnehmen übersprungen, weil er nicht mehr in entries steht.
+     */
+    private static final class UserQueue {
+        final String userId;
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<ObjectId, Entry> entries = new HashMap<>();
+        final PriorityQueue<Entry> heap = new PriorityQueue<>((a, b) -> Long.compare(a.dueMs, b.dueMs));
+        final Map<ObjectId, Review> changed = new LinkedHashMap<>();
+
+        UserQueue(String userId) {
+            this.userId = userId;
+        }
+
+        void put(Entry entry) {
+            entries.put(entry.questionId, entry);
+            heap.add(entry);
+            // Veraltete Einträge wegräumen, bevor sie den Heap dominieren
+            if (heap.size() > 2 * entries.size() + 16) {
+                heap.clear();
+                heap.addAll(entries.values());
+            }
+        }
+
+        // Zurückstellen ohne Änderung des gespeicherten Stands
+        void hold(ObjectId questionId, int box, long dueMs) {
+            put(new Entry(questionId, box, dueMs));
+        }
+
+        /**
+         * Frühester gültiger Eintrag; veraltete und gelöschte Fragen werden dabei entfernt
+         */
+        Entry peekValid(QuestionCatalog catalog) {
+            Entry head;
+            while ((head = heap.peek()) != null) {
+                if (entries.get(head.questionId) != head) {
+                    heap.poll();
+                } else if (catalog.findById(head.questionId) == null) {
+                    heap.poll();
+                    entries.remove(head.questionId);
+                } else {
+                    return head;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.acme;
+
+import java.util.List;
+
+/**
+ * Speicher-Abstraktion für den Lernstand je Nutzer, analog zu {@link QuestionStore}
+ */
+public interface ReviewStore {
+
+    /**
+     * Lernstand eines Nutzers über alle Fragen; leer, wenn er noch nichts beantwortet hat
+     */
+    List<Review> load(String userId);
+
+    /**
+     * Schreibt alle Einträge in einem Zugriff; vorhandene Einträge derselben Frage werden ersetzt
+     */
+    void save(List<Review> reviews);
+}
@@ -0,0 +1,175 @@
+package org.acme;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+/**
+ * Liefert die beim Build vorbereiteten Dateien der Weboberfläche aus META-INF/assets aus (siehe src/build/java/org/acme/AssetPipeline.java).
+ * Gewählt wird die vorab komprimierte Variante passend zu Accept-Encoding (br vor gzip); zur Laufzeit wird nichts komprimiert.
+ * Dateien mit Inhalts-Hash im Namen sind ein Jahr lang immutable, Seiten und alte Dateinamen werden per ETag revalidiert.
+ * Ohne Manifest (Dev-Modus) bleibt es bei der normalen Auslieferung aus META-INF/resources.
+ */
+@ApplicationScoped
+public class StaticAssets {
+
+    private static final Logger LOG = Logger.getLogger(StaticAssets.class);
+
+    private static final String BASE = "META-INF/assets/";
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "no-cache";
+    private static final HexFormat HEX = HexFormat.of();
+
+    @ConfigProperty(name = "app.assets.enabled", defaultValue = "true")
+    boolean enabled;
+
+    private final Map<String, Asset> assets = new HashMap<>();
+
+    void init(@Observes Router router) {
+        if (!enabled) return;
+        try (InputStream manifest = resource(BASE + "manifest")) {
+            if (manifest == null) {
+                LOG.info("Kein Asset-Manifest gefunden, Weboberfläche wird unverändert aus META-INF/resources ausgeliefert");
+                return;
+            }
+            load(manifest);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Asset-Manifest nicht lesbar", e);
+        }
+        router.route().method(HttpMethod.GET).method(HttpMethod.HEAD).handler(this::serve);
+        LOG.infof("%d vorkomprimierte Assets geladen", assets.size());
+    }
+
+    private void serve(RoutingContext context) {
+        String path = context.normalizedPath();
+        Asset asset = path.startsWith("/") ? assets.get(path.substring(1)) : null;
+        if (asset == null) {
+            context.next();
+            return;
+        }
+
+        Variant variant = asset.select(context.request().getHeader(HttpHeaders.ACCEPT_ENCODING));
+        HttpServerResponse response = context.response()
+            .putHeader(HttpHeaders.CONTENT_TYPE, asset.contentType)
+            .putHeader(HttpHeaders.CACHE_CONTROL, asset.immutable ? IMMUTABLE : REVALIDATE)
+            .putHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .putHeader(HttpHeaders.ETAG, variant.etag);
+        if (variant.encoding != null) {
+            response.putHeader(HttpHeaders.CONTENT_ENCODING, variant.encoding);
+        }
+
+        String ifNoneMatch = context.request().getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(variant.etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatusCode(304).end();
+            return;
+        }
+        response.putHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(variant.content.length));
+        if (context.request().method() == HttpMethod.HEAD) {
+            response.end();
+        } else {
+            response.end(Buffer.buffer(variant.content));
+        }
+    }
+
+    // Zeilen: Pfad, Datei, immutable, Kodierungen (gzip,br oder -)
+    private void load(InputStream manifest) throws IOException {
+        Map<String, Asset> byFile = new HashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(manifest, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) continue;
+            String[] columns = line.split("\t");
+            String file = columns[1];
+            boolean immutable = Boolean.parseBoolean(columns[2]);
+            Asset asset = byFile.get(file + immutable);
+            if (asset == null) {
+                asset = Asset.load(file, immutable, columns[3].equals("-") ? new String[0] : columns[3].split(","));
+                byFile.put(file + immutable, asset);
+            }
+            assets.put(columns[0], asset);
+        }
+    }
+
+    private static byte[] read(String file) throws IOException {
+        try (InputStream in = resource(BASE + file)) {
+            if (in == null) throw new IOException("Asset fehlt: " + file);
+            return in.readAllBytes();
+        }
+    }
+
+    private static InputStream resource(String name) {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(name);
+    }
+
+    private static String contentType(String file) {
+        if (file.endsWith(".html")) return "text/html; charset=UTF-8";
+        if (file.endsWith(".js")) return "text/javascript; charset=UTF-8";
+        if (file.endsWith(".css")) return "text/css; charset=UTF-8";
+        return "application/octet-stream";
+    }
+
+    private record Variant(String encoding, byte[] content, String etag) { }
+
+    private record Asset(String contentType, boolean immutable, Variant identity, Variant gzip, Variant brotli) {
+
+        static Asset load(String file, boolean immutable, String[] encodings) throws IOException {
+            byte[] content = read(file);
+            String tag = hash(content);
+            Variant gzip = null;
+            Variant brotli = null;
+            for (String encoding : encodings) {
+                if (encoding.equals("gzip")) gzip = new Variant("gzip", read(file + ".gz"), '"' + tag + "-gzip\"");
+                if (encoding.equals("br")) brotli = new Variant("br", read(file + ".br"), '"' + tag + "-br\"");
+            }
+            return new Asset(StaticAssets.contentType(file), immutable, new Variant(null, content, '"' + tag + '"'), gzip, brotli);
+        }
+
+        /**
+         * br vor gzip vor unkomprimiert; eine Kodierung mit q=0 gilt als abgelehnt
+         */
+        Variant select(String acceptEncoding) {
+            if (acceptEncoding == null) return identity;
+            boolean br = false;
+            boolean gz = false;
+            for (String part : acceptEncoding.split(",")) {
+                String[] tokens = part.trim().split(";");
+                String name = tokens[0].trim().toLowerCase();
+                boolean refused = tokens.length > 1 && tokens[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+                if (refused) continue;
+                if (name.equals("br")) br = true;
+                if (name.equals("gzip")) gz = true;
+            }
+            if (br && brotli != null) return brotli;
+            if (gz && gzip != null) return gzip;
+            return identity;
+        }
+
+        private static String hash(byte[] content) {
+            try {
+                return HEX.formatHex(MessageDigest.getInstance("SHA-256").digest(content), 0, 16);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.acme;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+
+/**
+ * Warmstart aus einem lokalen Abbild: beim Start werden Katalog und API-Schlüssel aus der Datei übernommen,
+ * sodass Anfragen sofort beantwortet werden, auch wenn MongoDB noch nicht erreichbar ist.
+ * Schlüssel nur, wenn das Abbild jünger als app.auth.cache.ttl ist, und nur für die restliche TTL; ein in der Zwischenzeit
+ * gelöschter Schlüssel gilt damit nicht länger, als er es im laufenden Cache getan hätte.
+ * Der Abgleich mit der Datenbank läuft danach im Hintergrund, bis er einmal gelungen ist.
+ * Das Abbild wird regelmäßig und beim Herunterfahren neu geschrieben.
+ */
+@ApplicationScoped
+public class WarmStart {
+
+    private static final Logger LOG = Logger.getLogger(WarmStart.class);
+
+    @Inject
+    QuestionCatalog catalog;
+
+    @Inject
+    QuestionSearchIndex searchIndex;
+
+    @Inject
+    QuestionStatistics statistics;
+
+    @Inject
+    ApiKeyCache apiKeyCache;
+
+    @Inject
+    AccessKeyStore accessKeys;
+
+    @ConfigProperty(name = "app.snapshot.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.snapshot.path", defaultValue = "data/question-bank.snap")
+    String path;
+
+    @ConfigProperty(name = "app.snapshot.catch-up-retry", defaultValue = "10s")
+    Duration catchUpRetry;
+
+    private volatile boolean restored;
+
+    /**
+     * Läuft vor den übrigen Start-Beobachtern, damit Katalog und Suchindex schon aus dem Abbild aufgebaut werden
+     */
+    void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION) StartupEvent event) {
+        if (!enabled || !catalog.isEnabled()) return;
+
+        long started = System.nanoTime();
+        QuestionBankSnapshot.Contents contents;
+        try {
+            contents = QuestionBankSnapshot.read(Path.of(path));
+        } catch (NoSuchFileException e) {
+            LOG.infof("Kein Abbild unter %s, Start ohne Warmstart", path);
+            return;
+        } catch (IOException e) {
+            LOG.warnf("Abbild %s wird ignoriert: %s", path, e.getMessage());
+            return;
+        }
+
+        catalog.restore(contents.questions());
+        int keys = apiKeyCache.restore(contents.keys(), contents.createdAt());
+        restored = true;
+        LOG.infof("Warmstart aus %s (Stand %s): %d Fragen, %d Schlüssel in %d ms geladen",
+            path, contents.createdAt(), contents.questions().size(), keys,
+            Duration.ofNanos(System.nanoTime() - started).toMillis());
+
+        Thread catchUp = new Thread(this::catchUp, "snapshot-catch-up");
+        catchUp.setDaemon(true);
+        catchUp.start();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        writeSnapshot();
+    }
+
+    public boolean isRestored() {
+        return restored;
+    }
+
+    @Scheduled(every = "${app.snapshot.interval:5m}", delayed = "${app.snapshot.interval:5m}")
+    void writeSnapshot() {
+        if (!enabled || !catalog.isLoaded()) return;
+
+        long started = System.nanoTime();
+        try {
+            List<AccessKey> keys = accessKeys.listAll();
+            List<QuizQuestion> questions = catalog.listAll();
+            QuestionBankSnapshot.write(Path.of(path), questions, keys);
+            LOG.debugf("Abbild mit %d Fragen in %d ms geschrieben", questions.size(),
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+        } catch (IOException | RuntimeException e) {
+            LOG.warnf("Abbild konnte nicht geschrieben werden: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Verwirft inzwischen gelöschte Schlüssel und lädt Katalog, Suchindex und Statistiken aus der Datenbank nach;
+     * wiederholt, bis MongoDB antwortet
+     */
+    private void catchUp() {
+        long started = System.nanoTime();
+        while (true) {
+            try {
+                apiKeyCache.revalidate(accessKeys.listAll());
+                catalog.reload();
+                searchIndex.rebuild();
+                statistics.rebuild();
+                LOG.infof("Abgleich mit der Datenbank nach %d ms abgeschlossen",
+                    Duration.ofNanos(System.nanoTime() - started).toMillis());
+                return;
+            } catch (RuntimeException e) {
+                LOG.warnf("Abgleich mit der Datenbank fehlgeschlagen, neuer Versuch in %s: %s", catchUpRetry, e.getMessage());
+            }
+            try {
+                Thread.sleep(catchUpRetry.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
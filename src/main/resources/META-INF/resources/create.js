@@ -439,11 +439,13 @@ document.getElementById('quizForm').addEventListener('submit', async (e) => {
 
         let url = API_URL;
         let method = 'POST';
+        let body = data;
         
-        // Wenn wir im Edit-Modus sind, verwende PUT
+        // Im Edit-Modus nur geänderte Felder mit der geladenen Version per PATCH senden
         if (editingQuestionId) {
             url = `${API_URL}/${editingQuestionId}`;
-            method = 'PUT';
+            method = 'PATCH';
+            body = changedFields(editingQuestion, data);
         }
         
         const response = await fetch(url, {
@@ -452,7 +454,7 @@ document.getElementById('quizForm').addEventListener('submit', async (e) => {
                 'Content-Type': 'application/json',
                 'X-API-Key': adminKey
             },
-            body: JSON.stringify(data)
+            body: JSON.stringify(body)
         });
 
         if (response.ok) {
@@ -460,6 +462,8 @@ document.getElementById('quizForm').addEventListener('submit', async (e) => {
             showMessage(message, 'success');
             resetForm();
             loadQuestions();
+        } else if (response.status === 409) {
+            showMessage('Die Frage wurde inzwischen von jemand anderem geändert. Bitte neu laden und erneut bearbeiten. ⚠️', 'error');
         } else {
             // Zeige Backend-Fehlermeldung
             try {
@@ -498,6 +502,7 @@ function resetForm() {
     document.getElementById('itemCount').value = 4;
     document.getElementById('categoryCount').value = 3;
     editingQuestionId = null;
+    editingQuestion = null;
     
     // Button-Text zurücksetzen
     const submitButton = document.querySelector('#quizForm button[type="submit"]');
@@ -592,7 +597,7 @@ async function loadQuestions() {
                         <button class="btn btn-primary btn-sm me-2" onclick="editQuestion('${q.id}')">
                             <i class="bi bi-pencil-fill"></i> Bearbeiten
                         </button>
-                        <button class="btn btn-danger btn-sm" onclick="deleteQuestion('${q.id}')">
+                        <button class="btn btn-danger btn-sm" onclick="deleteQuestion('${q.id}', ${q.version ?? 0})">
                             <i class="bi bi-trash-fill"></i> Löschen
                         </button>
                     </div>
@@ -604,8 +609,74 @@ async function loadQuestions() {
     }
 }
 
+// Volltextsuche; ein leeres Suchfeld zeigt wieder alle Fragen
+let searchTimer = null;
+
+function onSearchInput() {
+    clearTimeout(searchTimer);
+    searchTimer = setTimeout(searchQuestions, 250);
+}
+
+async function searchQuestions() {
+    const query = document.getElementById('questionSearch').value.trim();
+    if (!query) {
+        loadQuestions();
+        return;
+    }
+
+    try {
+        const key = ensureReadKey();
+        if (!key) return;
+
+        const response = await fetch(`${API_URL}/search?q=${encodeURIComponent(query)}&limit=50`, {
+            headers: {
+                'X-API-Key': key
+            }
+        });
+        const result = await response.json();
+        const listDiv = document.getElementById('questionsList');
+
+        if (!result.items || result.items.length === 0) {
+            listDiv.innerHTML = '<p class="text-center text-muted">Keine passenden Fragen gefunden.</p>';
+            return;
+        }
+
+        listDiv.innerHTML = `<p class="text-muted">${result.total} Treffer</p>` + result.items.map(hit => `
+            <div class="card question-card mb-3">
+                <div class="card-body">
+                    <h5 class="card-title">${hit.question.question}</h5>
+                    <div class="mb-3">
+                        <span class="badge bg-primary me-2"><i class="bi bi-tag-fill"></i> ${hit.question.category}</span>
+                        <span class="badge bg-secondary me-2"><i class="bi bi-speedometer2"></i> ${hit.question.difficulty}</span>
+                    </div>
+                    <button class="btn btn-primary btn-sm me-2" onclick="editQuestion('${hit.question.id}')">
+                        <i class="bi bi-pencil-fill"></i> Bearbeiten
+                    </button>
+                    <button class="btn btn-danger btn-sm" onclick="deleteQuestion('${hit.question.id}', ${hit.question.version})">
+                        <i class="bi bi-trash-fill"></i> Löschen
+                    </button>
+                </div>
+            </div>
+        `).join('');
+    } catch (error) {
+        console.error('Fehler bei der Suche:', error);
+    }
+}
+
 // Frage bearbeiten
 let editingQuestionId = null;
+let editingQuestion = null;
+
+// Nur Felder, die sich gegenüber dem geladenen Stand geändert haben, plus dessen Version
+function changedFields(original, data) {
+    const changes = { version: original.version ?? 0 };
+    Object.keys(data).forEach(key => {
+        if (JSON.stringify(data[key]) !== JSON.stringify(original[key])) {
+            changes[key] = data[key];
+        }
+    });
+    return changes;
+}
 
 async function editQuestion(id) {
     try {
@@ -693,8 +764,9 @@ async function editQuestion(id) {
             }
         }
         
-        // ID merken für Update
+        // ID und geladenen Stand merken für Update
         editingQuestionId = id;
+        editingQuestion = question;
         
         // Alle Steps sichtbar machen beim Bearbeiten
         showStep('step-questionType');
@@ -716,7 +788,7 @@ async function editQuestion(id) {
 }
 
 // Frage löschen
-async function deleteQuestion(id) {
+async function deleteQuestion(id, version) {
     if (!confirm('Möchtest du diese Frage wirklich löschen?')) {
         return;
     }
@@ -725,7 +797,7 @@ async function deleteQuestion(id) {
         const adminKey = ensureAdminKey();
         if (!adminKey) return;
 
-        const response = await fetch(`${API_URL}/${id}`, {
+        const response = await fetch(`${API_URL}/${id}?version=${version ?? 0}`, {
             method: 'DELETE',
             headers: {
                 'X-API-Key': adminKey
@@ -735,6 +807,9 @@ async function deleteQuestion(id) {
         if (response.ok) {
             showMessage('Frage erfolgreich gelöscht! ✅', 'success');
             loadQuestions();
+        } else if (response.status === 409) {
+            showMessage('Die Frage wurde inzwischen geändert und nicht gelöscht. ⚠️', 'error');
+            loadQuestions();
         } else {
             showMessage('Fehler beim Löschen der Frage! ❌', 'error');
         }
@@ -747,6 +822,7 @@ async function deleteQuestion(id) {
 window.addEventListener('load', function() {
     loadQuestions();
     initializeFormSteps();
+    document.getElementById('questionSearch').addEventListener('input', onSearchInput);
     document.getElementById('adminKeyInput').value = getAdminKey();
     updateAdminKeyState();
     const userInput = document.getElementById('userKeyInput');
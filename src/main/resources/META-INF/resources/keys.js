@@ -36,6 +36,9 @@ async function loadKeys() {
                 <td>${k.createdAt}</td>
                 <td><code>${k.userId || '-'}</code></td>
                 <td>${k.maskedKey}</td>
+                <td>${k.rateLimitPerSecond != null ? k.rateLimitPerSecond + '/s' : 'Rolle'}${k.rateLimitBurst != null ? ' (Burst ' + k.rateLimitBurst + ')' : ''}</td>
+                <td>${k.requestCount}${k.forbiddenCount || k.rateLimitedCount ? ` <small class="text-muted">(403: ${k.forbiddenCount}, 429: ${k.rateLimitedCount})</small>` : ''}</td>
+                <td>${k.lastUsedAt || 'nie'}</td>
                 <td class="text-end">
                     <button class="btn btn-sm btn-outline-danger" onclick="deleteKey('${k.id}')"><i class="bi bi-trash"></i></button>
                 </td>
@@ -53,6 +56,9 @@ async function loadKeys() {
                             <th>Erstellt am</th>
                             <th>UserId</th>
                             <th>Key</th>
+                            <th>Rate-Limit</th>
+                            <th>Anfragen</th>
+                            <th>Zuletzt benutzt</th>
                             <th></th>
                         </tr>
                     </thead>
@@ -75,6 +81,10 @@ async function createKey() {
     const role = document.getElementById('newKeyRole').value;
     const label = document.getElementById('newKeyLabel').value.trim();
     const displayName = document.getElementById('newKeyDisplayName')?.value.trim();
+    const rateLimitValue = document.getElementById('newKeyRateLimit')?.value;
+    const burstValue = document.getElementById('newKeyRateBurst')?.value;
+    const rateLimitPerSecond = rateLimitValue ? parseFloat(rateLimitValue) : null;
+    const rateLimitBurst = burstValue ? parseInt(burstValue, 10) : null;
 
     try {
         const response = await fetch(API_URL, {
@@ -83,7 +93,7 @@ async function createKey() {
                 'Content-Type': 'application/json',
                 'X-API-Key': key
             },
-            body: JSON.stringify({ role, label, displayName })
+            body: JSON.stringify({ role, label, displayName, rateLimitPerSecond, rateLimitBurst })
         });
 
         if (!response.ok) {
@@ -70,6 +70,9 @@ const categoryColors = {
 
 let allQuestions = [];
 let categoryStats = {};
+let changeSequence = null;
+let changeStream = null;
+let renderPending = false;
 
 // Lade Daten beim Start
 window.addEventListener('load', async function() {
@@ -92,9 +95,15 @@ async function loadData() {
             headers: { 'X-API-Key': key }
         });
         const stats = await statsResponse.json();
+
+        // Stand vor der Liste merken; was danach geändert wird, kommt über den Änderungsstrom
+        const changesResponse = await fetch(`${API_URL}/changes`, {
+            headers: { 'X-API-Key': key }
+        });
+        const changes = await changesResponse.json();
         
-        // Lade alle Fragen
-        const questionsResponse = await fetch(API_URL, {
+        // Lade alle Fragen, aber nur die Felder für die Übersicht
+        const questionsResponse = await fetch(`${API_URL}?fields=question,questionType,category,difficulty`, {
             headers: { 'X-API-Key': key }
         });
         allQuestions = await questionsResponse.json();
@@ -103,12 +112,111 @@ async function loadData() {
         updateStatistics(stats);
         calculateCategoryStats();
         renderCategories();
+
+        followChanges(key, changes.sequence);
         
     } catch (error) {
         console.error('Fehler beim Laden der Daten:', error);
     }
 }
 
+// Folgt den Änderungen per Server-Sent Events, statt die Liste neu zu laden.
+// EventSource kann keinen X-API-Key mitschicken, daher fetch und der Stream wird selbst zerlegt.
+async function followChanges(key, since) {
+    if (changeStream) changeStream.abort();
+    const controller = new AbortController();
+    changeStream = controller;
+    changeSequence = since;
+    let delay = 1000;
+
+    while (!controller.signal.aborted) {
+        try {
+            const response = await fetch(`${API_URL}/changes/stream?since=${changeSequence}`, {
+                headers: { 'X-API-Key': key, 'Accept': 'text/event-stream' },
+                signal: controller.signal
+            });
+            if (!response.ok) throw new Error(`HTTP ${response.status}`);
+            delay = 1000;
+
+            const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+            let buffer = '';
+            while (true) {
+                const { value, done } = await reader.read();
+                if (done) break;
+                buffer += value.replace(/\r/g, '');
+                let end;
+                while ((end = buffer.indexOf('\n\n')) >= 0) {
+                    const block = buffer.slice(0, end);
+                    buffer = buffer.slice(end + 2);
+                    if (await applyChange(key, parseEvent(block))) {
+                        // Rückstand zu groß: einmal komplett neu laden, das startet auch den Strom neu
+                        loadData();
+                        return;
+                    }
+                }
+            }
+        } catch (error) {
+            if (controller.signal.aborted) return;
+            console.warn('Änderungsstrom unterbrochen:', error);
+        }
+        // Server geschlossen (z. B. zu langsam gelesen) oder Netzwerkfehler: ab der letzten Nummer fortsetzen
+        await new Promise(resolve => setTimeout(resolve, delay));
+        delay = Math.min(delay * 2, 30000);
+    }
+}
+
+function parseEvent(block) {
+    const event = { name: 'message', data: '' };
+    block.split('\n').forEach(line => {
+        if (line.startsWith('event:')) event.name = line.slice(6).trim();
+        else if (line.startsWith('data:')) event.data += (event.data ? '\n' : '') + line.slice(5).trimStart();
+    });
+    return event;
+}
+
+// Übernimmt ein Ereignis in allQuestions; true, wenn komplett neu geladen werden muss
+async function applyChange(key, event) {
+    if (event.name === 'ping' || !event.data) return false;
+    const data = JSON.parse(event.data);
+    if (event.name === 'reset') {
+        // Ohne Nummer ist der Server nur ausgelastet; dann später erneut verbinden
+        return data.sequence !== undefined;
+    }
+
+    let question = data.question;
+    if (event.name === 'upsert' && !question) {
+        const response = await fetch(`${API_URL}/${data.id}`, {
+            headers: { 'X-API-Key': key }
+        });
+        question = response.ok ? await response.json() : null;
+    }
+    allQuestions = allQuestions.filter(q => q.id !== data.id);
+    if (event.name === 'upsert' && question) {
+        allQuestions.push(question);
+    }
+    changeSequence = data.sequence;
+    scheduleRender();
+    return false;
+}
+
+// Viele Ereignisse kurz hintereinander (z. B. Import) werden zusammen gezeichnet
+function scheduleRender() {
+    if (renderPending) return;
+    renderPending = true;
+    setTimeout(() => {
+        renderPending = false;
+        const count = type => allQuestions.filter(q => q.questionType === type).length;
+        updateStatistics({
+            totalQuestions: allQuestions.length,
+            multipleChoiceQuestions: count('multiple-choice'),
+            textQuestions: count('text'),
+            matchingQuestions: count('matching')
+        });
+        calculateCategoryStats();
+        renderCategories();
+    }, 100);
+}
+
 // Update Statistiken
 function updateStatistics(stats) {
     document.getElementById('totalQuestions').textContent = stats.totalQuestions;
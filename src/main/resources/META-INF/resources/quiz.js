@@ -40,12 +40,18 @@ function ensureUserKey() {
     return key;
 }
 
-let allQuestions = [];
-let currentQuestions = [];
+// Obergrenze des Servers (app.exam.max-questions)
+const MAX_QUIZ_SIZE = 100;
+
+let sessionId = null;
+let sessionSize = 0;
+let currentQuestion = null;
 let currentQuestionIndex = 0;
 let correctAnswers = 0;
 let wrongAnswers = 0;
 let userAnswers = [];
+let attempts = [];
+let questionShownAt = 0;
 
 // Lade Statistiken beim Start
 window.addEventListener('load', async function() {
@@ -87,31 +93,45 @@ async function loadStatistics() {
 async function startQuiz() {
     const category = document.getElementById('filterCategory').value;
     const difficulty = document.getElementById('filterDifficulty').value;
+    const size = parseInt(document.getElementById('quizSize').value, 10);
+    if (!(size >= 1 && size <= MAX_QUIZ_SIZE)) {
+        alert(`Bitte eine Anzahl zwischen 1 und ${MAX_QUIZ_SIZE} angeben.`);
+        return;
+    }
     
     try {
         const key = ensureUserKey();
         if (!key) return;
 
-        let url = `${API_URL}/filter?`;
-        if (category) url += `category=${encodeURIComponent(category)}&`;
-        if (difficulty) url += `difficulty=${encodeURIComponent(difficulty)}`;
-        
-        const response = await fetch(url, {
-            headers: { 'X-API-Key': key }
+        // Sitzung anlegen: der Server zieht die Fragen zufällig und ohne Wiederholung
+        const response = await fetch(`${API_URL}/sessions`, {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json', 'X-API-Key': key },
+            body: JSON.stringify({
+                count: size,
+                category: category || null,
+                difficulty: difficulty || null
+            })
         });
-        allQuestions = await response.json();
         
-        if (allQuestions.length === 0) {
+        if (response.status === 404) {
             alert('Keine Fragen gefunden! Bitte erstelle zuerst Fragen.');
             return;
         }
+        const session = await response.json();
         
-        // Mische Fragen
-        currentQuestions = shuffleArray([...allQuestions]);
+        sessionId = session.sessionId;
+        sessionSize = session.size;
         currentQuestionIndex = 0;
         correctAnswers = 0;
         wrongAnswers = 0;
         userAnswers = [];
+        attempts = [];
+        
+        if (!await loadQuestion(0)) {
+            alert('Fehler beim Laden der Fragen!');
+            return;
+        }
         
         document.getElementById('quizSetup').style.display = 'none';
         document.getElementById('quizContainer').style.display = 'block';
@@ -123,15 +143,34 @@ async function startQuiz() {
     }
 }
 
+// Lade die Frage an Position index; der Server überspringt gelöschte Fragen und verändert die Sitzung nicht,
+// ein erneuter Aufruf nach einem Fehler liefert also dieselbe Frage. false, wenn ab index keine Frage mehr übrig ist
+async function loadQuestion(index) {
+    const response = await fetch(`${API_URL}/sessions/${sessionId}/questions/${index}`, {
+        headers: { 'X-API-Key': getUserKey() }
+    });
+    if (response.status === 404) {
+        return false;
+    }
+    if (!response.ok) {
+        throw new Error(`HTTP ${response.status}`);
+    }
+    const entry = await response.json();
+    currentQuestion = entry.question;
+    currentQuestionIndex = entry.index;
+    return true;
+}
+
 // Zeige aktuelle Frage
 function showQuestion() {
-    const question = currentQuestions[currentQuestionIndex];
+    const question = currentQuestion;
+    questionShownAt = Date.now();
     
     // Update UI
-    document.getElementById('questionCounter').textContent = `Frage ${currentQuestionIndex + 1} / ${currentQuestions.length}`;
+    document.getElementById('questionCounter').textContent = `Frage ${currentQuestionIndex + 1} / ${sessionSize}`;
     document.getElementById('questionText').textContent = question.question;
     
-    const progress = ((currentQuestionIndex + 1) / currentQuestions.length) * 100;
+    const progress = ((currentQuestionIndex + 1) / sessionSize) * 100;
     document.getElementById('progressBar').style.width = progress + '%';
     document.getElementById('progressBar').textContent = Math.round(progress) + '%';
     
@@ -194,31 +233,20 @@ function showQuestion() {
     document.getElementById('feedbackContainer').style.display = 'none';
 }
 
-// Überprüfe Antwort
-function checkAnswer() {
-    const question = currentQuestions[currentQuestionIndex];
-    let isCorrect = false;
+// Überprüfe Antwort: bewertet wird auf dem Server, der Browser vergleicht keine Lösungen
+async function checkAnswer() {
+    const question = currentQuestion;
     let userAnswer = null;
+    const answer = { questionId: question.id };
     
     if (question.questionType === 'multiple-choice') {
-        const selectedIndices = Array.from(document.querySelectorAll('input[name="answer"]:checked'))
+        userAnswer = Array.from(document.querySelectorAll('input[name="answer"]:checked'))
             .map(input => parseInt(input.value));
-        
-        userAnswer = selectedIndices;
-        
-        // Vergleiche Arrays
-        const correctSet = new Set(question.correctAnswerIndices);
-        const userSet = new Set(selectedIndices);
-        
-        isCorrect = correctSet.size === userSet.size && 
-                   [...correctSet].every(val => userSet.has(val));
+        answer.selectedIndices = userAnswer;
         
     } else if (question.questionType === 'text') {
-        const userText = document.getElementById('textAnswerInput').value.trim();
-        userAnswer = userText;
-        
-        // Case-insensitive Vergleich
-        isCorrect = userText.toLowerCase() === question.textAnswer.toLowerCase();
+        userAnswer = document.getElementById('textAnswerInput').value.trim();
+        answer.textAnswer = userAnswer;
         
     } else if (question.questionType === 'matching') {
         const userMappings = [];
@@ -239,9 +267,32 @@ function checkAnswer() {
         });
         
         userAnswer = userMappings;
-        
-        // Vergleiche Mappings
-        isCorrect = compareMappings(question.correctMappings, userMappings);
+        answer.mappings = userMappings;
+    }
+    
+    let isCorrect;
+    const checkButton = document.getElementById('checkButton');
+    checkButton.disabled = true;
+    try {
+        const response = await fetch(`${API_URL}/grade`, {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json',
+                'X-API-Key': getUserKey()
+            },
+            body: JSON.stringify({ answers: [answer] })
+        });
+        if (!response.ok) {
+            throw new Error(`HTTP ${response.status}`);
+        }
+        const result = await response.json();
+        isCorrect = result.results[0].correct;
+    } catch (error) {
+        console.error('Fehler beim Bewerten der Antwort:', error);
+        alert('Die Antwort konnte nicht bewertet werden, bitte erneut versuchen.');
+        return;
+    } finally {
+        checkButton.disabled = false;
     }
     
     // Speichere Antwort
@@ -251,6 +302,15 @@ function checkAnswer() {
         isCorrect: isCorrect
     });
     
+    // Antwortversuch für die Auswertung merken, gesendet wird gesammelt am Ende; bewertet wird er auf dem Server
+    attempts.push({
+        questionId: question.id,
+        selectedIndices: question.questionType === 'multiple-choice' ? userAnswer : null,
+        textAnswer: question.questionType === 'text' ? userAnswer : null,
+        mappings: question.questionType === 'matching' ? userAnswer : null,
+        timeTakenMs: Date.now() - questionShownAt
+    });
+    
     // Update Zähler
     if (isCorrect) {
         correctAnswers++;
@@ -305,23 +365,30 @@ function showFeedback(isCorrect, question) {
 }
 
 // Nächste Frage
-function nextQuestion() {
-    currentQuestionIndex++;
-    
-    if (currentQuestionIndex >= currentQuestions.length) {
-        showResults();
-    } else {
+async function nextQuestion() {
+    let loaded = false;
+    try {
+        loaded = currentQuestionIndex + 1 < sessionSize && await loadQuestion(currentQuestionIndex + 1);
+    } catch (error) {
+        console.error('Fehler beim Laden der nächsten Frage:', error);
+        alert('Die nächste Frage konnte nicht geladen werden, bitte erneut versuchen.');
+        return;
+    }
+    if (loaded) {
         showQuestion();
+    } else {
+        showResults();
     }
 }
 
 // Zeige Ergebnisse
 function showResults() {
+    sendAttempts();
     document.getElementById('quizContainer').style.display = 'none';
     document.getElementById('resultsContainer').style.display = 'block';
     
-    const total = currentQuestions.length;
-    const percentage = Math.round((correctAnswers / total) * 100);
+    const total = correctAnswers + wrongAnswers;
+    const percentage = total > 0 ? Math.round((correctAnswers / total) * 100) : 0;
     
     document.getElementById('scorePercentage').textContent = percentage + '%';
     document.getElementById('scoreText').textContent = `${correctAnswers} von ${total} richtig`;
@@ -358,33 +425,33 @@ function resetQuiz() {
 // Quiz beenden
 function endQuiz() {
     if (confirm('Möchtest du das Quiz wirklich beenden?')) {
+        sendAttempts();
         resetQuiz();
     }
 }
 
-// Hilfsfunktion: Array mischen
-function shuffleArray(array) {
-    for (let i = array.length - 1; i > 0; i--) {
-        const j = Math.floor(Math.random() * (i + 1));
-        [array[i], array[j]] = [array[j], array[i]];
-    }
-    return array;
-}
-
-// Hilfsfunktion: Mappings vergleichen
-function compareMappings(correct, user) {
-    if (correct.length !== user.length) return false;
-    
-    for (const correctMapping of correct) {
-        const userMapping = user.find(m => m.categoryIndex === correctMapping.categoryIndex);
-        if (!userMapping) return false;
-        
-        const correctSet = new Set(correctMapping.itemIndices);
-        const userSet = new Set(userMapping.itemIndices);
-        
-        if (correctSet.size !== userSet.size) return false;
-        if (![...correctSet].every(val => userSet.has(val))) return false;
+// Antwortversuche gesammelt senden; ist der Server ausgelastet (503), den Rest später erneut senden
+async function sendAttempts(retries = 3) {
+    if (attempts.length === 0) return;
+    const pending = attempts;
+    attempts = [];
+    try {
+        const response = await fetch(`${API_URL}/attempts`, {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json',
+                'X-API-Key': getUserKey()
+            },
+            body: JSON.stringify(pending),
+            keepalive: true
+        });
+        if (response.status === 503 && retries > 0) {
+            const result = await response.json();
+            const retryAfter = parseInt(response.headers.get('Retry-After'), 10) || 1;
+            attempts = pending.slice(result.accepted || 0).concat(attempts);
+            setTimeout(() => sendAttempts(retries - 1), retryAfter * 1000);
+        }
+    } catch (error) {
+        console.error('Antwortversuche konnten nicht gesendet werden:', error);
     }
-    
-    return true;
 }
@@ -0,0 +1,106 @@
+package org.acme;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+class AnswerKeyTest {
+
+    @Test
+    void multipleChoiceNeedsExactlyTheCorrectAnswers() {
+        AnswerKey key = AnswerKey.compile(question("multiple-choice", q -> {
+            q.answers = List.of("A", "B", "C");
+            q.correctAnswerIndices = List.of(0, 2);
+        }));
+
+        assertTrue(key.grade(selected(2, 0)));
+        assertFalse(key.grade(selected(0)));
+        assertFalse(key.grade(selected(0, 1, 2)));
+        assertFalse(key.grade(selected(0, 64)));
+        assertFalse(key.grade(selected(0, -1)));
+        assertFalse(key.grade(new GradingService.Answer()));
+    }
+
+    @Test
+    void multipleChoiceWithMoreThan64AnswersIsNeverCorrect() {
+        AnswerKey key = AnswerKey.compile(question("multiple-choice", q -> {
+            q.answers = new ArrayList<>(Collections.nCopies(70, "X"));
+            q.correctAnswerIndices = List.of(65);
+        }));
+
+        assertFalse(key.grade(selected(65)));
+    }
+
+    @Test
+    void textIgnoresCaseAndSurroundingWhitespace() {
+        AnswerKey key = AnswerKey.compile(question("text", q -> q.textAnswer = " Berlin "));
+
+        assertTrue(key.grade(text("berlin")));
+        assertTrue(key.grade(text("  BERLIN\n")));
+        assertFalse(key.grade(text("Berli")));
+        assertFalse(key.grade(text("Ber lin")));
+        assertFalse(key.grade(text(null)));
+    }
+
+    @Test
+    void matchingNeedsEveryCategoryOnce() {
+        AnswerKey key = AnswerKey.compile(question("matching", q -> {
+            q.leftItems = List.of("Hund", "Forelle", "Katze");
+            q.rightItems = List.of("Säugetier", "Fisch");
+            q.correctMappings = List.of(mapping(0, 0, 2), mapping(1, 1));
+        }));
+
+        assertTrue(key.grade(mappings(mapping(1, 1), mapping(0, 2, 0))));
+        // Leere Zuordnungen zählen nicht
+        assertTrue(key.grade(mappings(mapping(0, 0, 2), mapping(1, 1), new QuizQuestion.CategoryMapping(1, List.of()))));
+        assertFalse(key.grade(mappings(mapping(0, 0, 2))));
+        assertFalse(key.grade(mappings(mapping(0, 0), mapping(1, 1, 2))));
+        assertFalse(key.grade(mappings(mapping(0, 0, 2), mapping(0, 0, 2), mapping(1, 1))));
+        assertFalse(key.grade(mappings(mapping(0, 0, 2), mapping(1, 1), mapping(2, 1))));
+    }
+
+    @Test
+    void unknownTypeIsNeverCorrect() {
+        AnswerKey key = AnswerKey.compile(question(null, q -> { }));
+
+        assertFalse(key.grade(selected(0)));
+        assertFalse(key.grade(text("x")));
+    }
+
+    private static QuizQuestion question(String type, Consumer<QuizQuestion> setup) {
+        QuizQuestion question = new QuizQuestion();
+        question.id = new ObjectId();
+        question.questionType = type;
+        setup.accept(question);
+        return question;
+    }
+
+    private static GradingService.Answer selected(Integer... indices) {
+        GradingService.Answer answer = new GradingService.Answer();
+        answer.selectedIndices = List.of(indices);
+        return answer;
+    }
+
+    private static GradingService.Answer text(String text) {
+        GradingService.Answer answer = new GradingService.Answer();
+        answer.textAnswer = text;
+        return answer;
+    }
+
+    private static GradingService.Answer mappings(QuizQuestion.CategoryMapping... mappings) {
+        GradingService.Answer answer = new GradingService.Answer();
+        answer.mappings = List.of(mappings);
+        return answer;
+    }
+
+    private static QuizQuestion.CategoryMapping mapping(int category, Integer... items) {
+        return new QuizQuestion.CategoryMapping(category, List.of(items));
+    }
+}
@@ -0,0 +1,102 @@
+package org.acme;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.acme.AccessKey.KeyRole;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class QuestionBankSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripKeepsQuestionsAndKeys() throws IOException {
+        QuizQuestion choice = new QuizQuestion("Hauptstadt?", "multiple-choice", List.of("Bern", "Wien"), List.of(1),
+            null, null, null, null, "Geografie", "leicht");
+        choice.id = new ObjectId();
+        choice.version = 3L;
+        QuizQuestion matching = new QuizQuestion("Zuordnen", "matching", null, null, null,
+            List.of("Hund", "Katze"), List.of("Säugetier"), List.of(new QuizQuestion.CategoryMapping(0, List.of(0, 1))),
+            "Biologie", null);
+        matching.id = new ObjectId();
+
+        AccessKey key = new AccessKey();
+        key.id = new ObjectId();
+        key.key = "geheim";
+        key.role = KeyRole.USER;
+        key.userId = "anna";
+        key.rateLimitBurst = 7;
+
+        Path file = directory.resolve("bank.snap");
+        QuestionBankSnapshot.write(file, List.of(choice, matching), List.of(key));
+        QuestionBankSnapshot.Contents contents = QuestionBankSnapshot.read(file);
+
+        assertEquals(2, contents.questions().size());
+        QuizQuestion readChoice = contents.questions().get(0);
+        assertEquals(choice.id, readChoice.id);
+        assertEquals(choice.contentFields(), readChoice.contentFields());
+        assertEquals(3L, readChoice.version);
+        QuizQuestion readMatching = contents.questions().get(1);
+        assertEquals(matching.contentFields(), readMatching.contentFields());
+        assertNull(readMatching.version);
+
+        assertEquals(List.of(new ApiKeyCache.ResolvedKey(key.id, ApiKeyCache.hash("geheim"), KeyRole.USER, "anna", null, 7)),
+            contents.keys());
+    }
+
+    @Test
+    void rejectsWrongChecksum() throws IOException {
+        Path file = writeOneQuestion();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer payload = ByteBuffer.allocate(1);
+            channel.read(payload, QuestionBankSnapshot.HEADER_SIZE + 20);
+            payload.put(0, (byte) (payload.get(0) ^ 0x01)).rewind();
+            channel.write(payload, QuestionBankSnapshot.HEADER_SIZE + 20);
+        }
+
+        IOException e = assertThrows(IOException.class, () -> QuestionBankSnapshot.read(file));
+        assertEquals("Prüfsumme stimmt nicht", e.getMessage());
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        Path file = writeOneQuestion();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        IOException e = assertThrows(IOException.class, () -> QuestionBankSnapshot.read(file));
+        assertEquals("Abbild unvollständig", e.getMessage());
+    }
+
+    @Test
+    void rejectsFileShorterThanHeader() throws IOException {
+        Path file = directory.resolve("short.snap");
+        Files.write(file, new byte[QuestionBankSnapshot.HEADER_SIZE - 1]);
+
+        IOException e = assertThrows(IOException.class, () -> QuestionBankSnapshot.read(file));
+        assertEquals("Abbild zu kurz", e.getMessage());
+    }
+
+    private Path writeOneQuestion() throws IOException {
+        QuizQuestion question = new QuizQuestion("Farbe des Himmels?", "text", null, null, "blau",
+            null, null, null, "Allgemein", "leicht");
+        question.id = new ObjectId();
+        Path file = directory.resolve("bank.snap");
+        QuestionBankSnapshot.write(file, List.of(question), List.of());
+        return file;
+    }
+}
@@ -0,0 +1,125 @@
+package org.acme;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Function;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+class QuestionCatalogTest {
+
+    // Über mehrere 64er-Wörter der Bitmaps, damit auch die Wortgrenzen beim Blättern vorkommen
+    private static final int QUESTIONS = 150;
+
+    private final List<QuizQuestion> questions = questions();
+    private final QuestionCatalog.Snapshot snapshot = QuestionCatalog.Snapshot.of(questions);
+
+    @Test
+    void pageWithoutFilterReturnsAllInIdOrder() {
+        QuestionPage<QuizQuestion> page = snapshot.page(QuestionFilter.ALL, null, 1000, Function.identity());
+
+        assertEquals(questions, page.items());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void filterCombinesAllCriteria() {
+        QuestionFilter filter = new QuestionFilter("text", "Kategorie 1", "leicht");
+
+        QuestionPage<QuizQuestion> page = snapshot.page(filter, null, 1000, Function.identity());
+
+        assertTrue(expected(filter).size() > 1);
+        assertEquals(expected(filter), page.items());
+    }
+
+    @Test
+    void unknownValueGivesEmptyPage() {
+        QuestionPage<QuizQuestion> page = snapshot.page(new QuestionFilter(null, "Unbekannt", null), null, 1000, Function.identity());
+
+        assertTrue(page.items().isEmpty());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void cursorContinuesAfterLastIdOfPreviousPage() {
+        QuestionFilter filter = new QuestionFilter(null, "Kategorie 2", null);
+        List<QuizQuestion> collected = new ArrayList<>();
+        ObjectId after = null;
+        int pages = 0;
+        do {
+            QuestionPage<QuizQuestion> page = snapshot.page(filter, after, 7, Function.identity());
+            assertTrue(page.items().size() <= 7);
+            collected.addAll(page.items());
+            after = page.nextCursor() == null ? null : new ObjectId(page.nextCursor());
+            pages++;
+        } while (after != null);
+
+        assertEquals(expected(filter), collected);
+        assertEquals((expected(filter).size() + 6) / 7, pages);
+    }
+
+    @Test
+    void cursorBetweenIdsStartsAtNextGreaterId() {
+        // Gleicher Zeitstempel wie Frage 69, größerer Zähler: liegt zwischen Frage 69 und 70, z. B. nach einem Löschen
+        ObjectId between = new ObjectId(1_700_000_000 + 69, 0xFFFFFF);
+
+        QuestionPage<QuizQuestion> page = snapshot.page(QuestionFilter.ALL, between, 1, Function.identity());
+
+        assertEquals(List.of(questions.get(70)), page.items());
+        assertEquals(questions.get(70).id.toHexString(), page.nextCursor());
+    }
+
+    @Test
+    void sampleOnlyReturnsMatchingQuestions() {
+        QuestionFilter filter = new QuestionFilter("matching", null, "mittel");
+        for (int i = 0; i < 50; i++) {
+            QuizQuestion sampled = snapshot.sample(filter);
+            assertNotNull(sampled);
+            assertTrue(filter.matches(sampled));
+        }
+        assertNull(snapshot.sample(new QuestionFilter("unbekannt", null, null)));
+    }
+
+    @Test
+    void sampleIdsAreDistinctAndStopWhenFilterIsExhausted() {
+        QuestionFilter filter = new QuestionFilter(null, "Kategorie 3", null);
+        List<ObjectId> matching = expected(filter).stream().map(question -> question.id).toList();
+
+        List<ObjectId> some = snapshot.sampleIds(filter, 10);
+        assertEquals(10, some.size());
+        assertEquals(10, new HashSet<>(some).size());
+        assertTrue(matching.containsAll(some));
+
+        List<ObjectId> all = snapshot.sampleIds(filter, 1000);
+        assertEquals(new HashSet<>(matching), new HashSet<>(all));
+        assertEquals(matching.size(), all.size());
+    }
+
+    private List<QuizQuestion> expected(QuestionFilter filter) {
+        return questions.stream().filter(filter::matches).toList();
+    }
+
+    private static List<QuizQuestion> questions() {
+        String[] types = { "multiple-choice", "text", "matching" };
+        String[] difficulties = { "leicht", "mittel", "schwer" };
+        List<QuizQuestion> questions = new ArrayList<>(QUESTIONS);
+        for (int i = 0; i < QUESTIONS; i++) {
+            QuizQuestion question = new QuizQuestion();
+            // Aufsteigende IDs, wie der Katalog sie sortiert erwartet
+            question.id = new ObjectId(1_700_000_000 + i, i);
+            question.question = "Frage " + i;
+            question.questionType = types[i % types.length];
+            question.category = "Kategorie " + (i % 4);
+            question.difficulty = difficulties[(i / 2) % difficulties.length];
+            questions.add(question);
+        }
+        return questions;
+    }
+}
@@ -0,0 +1,86 @@
+package org.acme;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.acme.AccessKey.KeyRole;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void bucketAllowsBurstThenReportsWait() {
+        long now = 0;
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket(10, 3, now);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.acquire(now));
+        }
+        // Ein Token kommt alle 100 ms nach
+        assertEquals(SECOND / 10, bucket.acquire(now));
+    }
+
+    @Test
+    void bucketRefillsOverTime() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket(10, 2, 0);
+        bucket.acquire(0);
+        bucket.acquire(0);
+
+        assertTrue(bucket.acquire(SECOND / 20) > 0);
+        assertEquals(0, bucket.acquire(SECOND / 10));
+        assertTrue(bucket.acquire(SECOND / 10) > 0);
+    }
+
+    @Test
+    void bucketIsIdleOnceFull() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket(10, 5, 0);
+        bucket.acquire(0);
+
+        assertFalse(bucket.isIdle(0));
+        assertTrue(bucket.isIdle(SECOND / 10));
+    }
+
+    @Test
+    void keyLimitsOverrideRoleDefaults() {
+        RateLimiter limiter = limiter();
+        ApiKeyCache.ResolvedKey custom = new ApiKeyCache.ResolvedKey(new ObjectId(), "custom", KeyRole.USER, "anna", 1.0, 1);
+        ApiKeyCache.ResolvedKey admin = new ApiKeyCache.ResolvedKey(new ObjectId(), "admin", KeyRole.ADMIN, null, null, null);
+
+        assertEquals(0, limiter.acquire(custom));
+        assertTrue(limiter.acquire(custom) > 0);
+        for (int i = 0; i < limiter.adminBurst; i++) {
+            assertEquals(0, limiter.acquire(admin));
+        }
+    }
+
+    @Test
+    void disabledLimiterAllowsEverything() {
+        RateLimiter limiter = limiter();
+        limiter.enabled = false;
+        ApiKeyCache.ResolvedKey key = new ApiKeyCache.ResolvedKey(new ObjectId(), "key", KeyRole.USER, "anna", 1.0, 1);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.acquire(key));
+        }
+    }
+
+    private static RateLimiter limiter() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.enabled = true;
+        limiter.userPerSecond = 20;
+        limiter.userBurst = 40;
+        limiter.adminPerSecond = 50;
+        limiter.adminBurst = 200;
+        limiter.keyManagerPerSecond = 5;
+        limiter.keyManagerBurst = 20;
+        limiter.maxBuckets = 100;
+        limiter.sweepInterval = Duration.ofMinutes(1);
+        return limiter;
+    }
+}
@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# Vergleicht Durchsatz und Latenz mit virtuellen Threads und mit dem Worker-Pool (bisheriger blockierender Pfad).
+#
+# Voraussetzungen: gebautes JVM-Paket (./mvnw package), laufende MongoDB mit Testdaten, wrk im PATH,
+# ausreichend Dateideskriptoren (ulimit -n 65536) auf Last- und Anwendungsseite.
+#
+#   API_KEY=... src/test/load/compare-modes.sh
+#
+# Ergebnisse landen je Modus und Verbindungszahl in target/loadtest/<modus>-<verbindungen>.txt,
+# die Zusammenfassung (Requests/s, p50, p99) in target/loadtest/summary.txt.
+set -euo pipefail
+
+API_KEY=${API_KEY:?API_KEY setzen (User- oder Admin-Key)}
+BASE_URL=${BASE_URL:-http://localhost:8080}
+# /summary geht immer an MongoDB und zeigt daher den Unterschied beim Warten auf die Datenbank
+ENDPOINT=${ENDPOINT:-/api/quiz/summary?limit=50}
+CONNECTIONS=${CONNECTIONS:-"1000 2500 5000 10000"}
+DURATION=${DURATION:-60s}
+THREADS=${THREADS:-8}
+OUT=target/loadtest
+
+mkdir -p "$OUT"
+: > "$OUT/summary.txt"
+
+for mode in virtual worker; do
+    enabled=$([ "$mode" = virtual ] && echo true || echo false)
+    java -Dquarkus.virtual-threads.enabled="$enabled" -Dapp.rate-limit.enabled=false \
+        -jar target/quarkus-app/quarkus-run.jar > "$OUT/$mode-app.log" 2>&1 &
+    app=$!
+    trap 'kill $app 2>/dev/null || true' EXIT
+
+    until curl -sf -o /dev/null -H "X-API-Key: $API_KEY" "$BASE_URL$ENDPOINT"; do sleep 1; done
+    # Aufwärmen: JIT und Verbindungspool
+    wrk -t"$THREADS" -c200 -d20s -H "X-API-Key: $API_KEY" "$BASE_URL$ENDPOINT" > /dev/null
+
+    for connections in $CONNECTIONS; do
+        result="$OUT/$mode-$connections.txt"
+        wrk -t"$THREADS" -c"$connections" -d"$DURATION" --timeout 10s --latency \
+            -H "X-API-Key: $API_KEY" "$BASE_URL$ENDPOINT" > "$result"
+        rps=$(awk '/Requests\/sec/ {print $2}' "$result")
+        p50=$(awk '$1 == "50%" {print $2}' "$result")
+        p99=$(awk '$1 == "99%" {print $2}' "$result")
+        errors=$(awk '/Socket errors|Non-2xx/ {print}' "$result" | tr '\n' ' ')
+        printf '%-8s %6s Verbindungen: %10s req/s  p50 %8s  p99 %8s  %s\n' \
+            "$mode" "$connections" "$rps" "$p50" "$p99" "$errors" | tee -a "$OUT/summary.txt"
+    done
+
+    kill "$app"
+    wait "$app" 2>/dev/null || true
+    trap - EXIT
+done